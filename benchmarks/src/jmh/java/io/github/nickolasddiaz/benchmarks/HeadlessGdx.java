@@ -0,0 +1,36 @@
+package io.github.nickolasddiaz.benchmarks;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.graphics.GL20;
+
+import java.lang.reflect.Proxy;
+
+// Starts the headless backend once per benchmark fork.
+// GameAssets loads textures, headless has no GL so every GL call answers with a harmless default.
+public final class HeadlessGdx {
+    private static HeadlessApplication application;
+
+    private HeadlessGdx() {
+    }
+
+    public static synchronized void start() {
+        if (application != null) return;
+        application = new HeadlessApplication(new ApplicationAdapter() {});
+        Gdx.gl = Gdx.gl20 = (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[]{GL20.class}, (proxy, method, args) -> {
+            Class<?> type = method.getReturnType();
+            if (type == int.class) return 1; // ids for textures and buffers
+            if (type == boolean.class) return false;
+            if (type == float.class) return 0f;
+            if (type == String.class) return "";
+            return null;
+        });
+    }
+
+    public static synchronized void stop() {
+        if (application == null) return;
+        application.exit();
+        application = null;
+    }
+}
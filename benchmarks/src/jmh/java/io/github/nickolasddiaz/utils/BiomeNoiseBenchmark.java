@@ -0,0 +1,57 @@
+package io.github.nickolasddiaz.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.github.nickolasddiaz.utils.MapGenerator.MAP_SIZE;
+
+// The biome noise of one chunk sampled one position at a time, as a region, and rasterized straight to biomes.
+// fillRegion must stay bit-identical to GetNoise and fillCellValueRegion must give the biomes of those values.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BiomeNoiseBenchmark {
+    @Param({"12345"})
+    public int seed;
+
+    @Param({"0:0", "-3:0"}) // chunkX:chunkY
+    public String chunk;
+
+    private FastNoiseLite noise;
+    private int xOffset;
+    private int yOffset;
+    private final float[] values = new float[MAP_SIZE * MAP_SIZE];
+    private final int[] biomes = new int[MAP_SIZE * MAP_SIZE];
+    private final FastNoiseLite.CellValueClassifier classifier = MapGenerator::assignTileType;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        noise = MapGenerator.createNoise(seed);
+        String[] coordinates = chunk.split(":");
+        xOffset = Integer.parseInt(coordinates[0].trim()) * MAP_SIZE;
+        yOffset = Integer.parseInt(coordinates[1].trim()) * MAP_SIZE;
+    }
+
+    @Benchmark
+    public float[] getNoise() {
+        for (int x = 0; x < MAP_SIZE; x++) {
+            for (int y = 0; y < MAP_SIZE; y++) {
+                values[x * MAP_SIZE + y] = noise.GetNoise(x + xOffset, y + yOffset);
+            }
+        }
+        return values;
+    }
+
+    @Benchmark
+    public float[] fillRegion() {
+        noise.fillRegion(values, xOffset, yOffset, MAP_SIZE, MAP_SIZE);
+        return values;
+    }
+
+    @Benchmark
+    public int[] fillCellValueRegion() {
+        noise.fillCellValueRegion(biomes, xOffset, yOffset, MAP_SIZE, MAP_SIZE, classifier);
+        return biomes;
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.nickolasddiaz.utils.MapGenerator.*;
+
+// One operation is one search between walkable cells of a generated 3x3 window, each operation takes the next pair.
+// The pairs are the same for every finder, picked at random over the whole window with a fixed seed.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathfindingBenchmark {
+    private static final int PAIRS = 256;
+
+    @Param({"12345"})
+    public int seed;
+
+    @Param({"0:0", "4:2"}) // center chunkX:chunkY of the window
+    public String chunk;
+
+    private WorldGraph graph;
+    private GridPathFinder aStar;
+    private JumpPointFinder jumpPoint;
+    private HierarchicalGraph hierarchy;
+    private OctileDistance octile;
+    private final int[] starts = new int[PAIRS];
+    private final int[] goals = new int[PAIRS];
+    private final GraphPath<Integer> path = new DefaultGraphPath<>();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MapGenerator generator = new MapGenerator(seed, null); // the grid needs no tiles
+        String[] coordinates = chunk.split(":");
+        int centerX = Integer.parseInt(coordinates[0].trim());
+        int centerY = Integer.parseInt(coordinates[1].trim());
+        graph = new WorldGraph();
+        graph.setCenter(centerX, centerY);
+        for (int x = centerX - 1; x <= centerX + 1; x++) {
+            for (int y = centerY - 1; y <= centerY + 1; y++) {
+                ChunkData data = generator.generateChunk(x, y);
+                graph.setChunk(x, y, data.notWalkableGrid, data.terrainMap);
+            }
+        }
+
+        aStar = new GridPathFinder(graph);
+        jumpPoint = new JumpPointFinder(graph);
+        hierarchy = new HierarchicalGraph(graph);
+        hierarchy.update();
+        octile = new OctileDistance(graph);
+
+        Random random = new Random(seed);
+        for (int i = 0; i < PAIRS; i++) {
+            starts[i] = randomWalkableCell(random);
+            goals[i] = randomWalkableCell(random);
+        }
+    }
+
+    private int randomWalkableCell(Random random) {
+        while (true) {
+            int cell = graph.getCellAt(random.nextInt(ALL_CHUNK_SIZE), random.nextInt(ALL_CHUNK_SIZE));
+            if (graph.isWalkable(cell)) return cell;
+        }
+    }
+
+    private int nextPair() {
+        next = (next + 1) % PAIRS;
+        return next;
+    }
+
+    // what the tanks with Navigation.PATH run, sliced over frames in the game
+    @Benchmark
+    public GraphPath<Integer> indexedAStar() {
+        int pair = nextPair();
+        path.clear();
+        aStar.searchNodePath(graph.getNode(starts[pair]), graph.getNode(goals[pair]), octile, path);
+        return path;
+    }
+
+    @Benchmark
+    public GraphPath<Integer> jumpPointSearch() {
+        int pair = nextPair();
+        jumpPoint.findPath(starts[pair], goals[pair], path);
+        return path;
+    }
+
+    // for comparison, only the first clusters of the way are refined
+    @Benchmark
+    public GraphPath<Integer> hierarchical() {
+        int pair = nextPair();
+        hierarchy.findPath(starts[pair], goals[pair], path);
+        return path;
+    }
+}
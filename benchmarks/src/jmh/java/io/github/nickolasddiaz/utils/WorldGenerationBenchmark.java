@@ -0,0 +1,92 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.Array;
+import io.github.nickolasddiaz.benchmarks.HeadlessGdx;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.github.nickolasddiaz.utils.MapGenerator.*;
+
+// Times every stage of chunk generation with one operation being one chunk.
+// Lives in the utils package so it can call the package-private stages of MapGenerator.
+// Chunks for seed 12345: 0:0 has no ocean, 4:2 is part ocean, -3:0 and -2:3 are mostly ocean.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorldGenerationBenchmark {
+    @Param({"12345"})
+    public int seed;
+
+    @Param({"0:0", "4:2", "-3:0", "-2:3"}) // chunkX:chunkY, -p takes a comma separated list
+    public String chunk;
+
+    private GameAssets assets;
+    private MapGenerator generator;
+    private int xOffset;
+    private int yOffset;
+    private int[][] biomeMap;
+    private short[] terrainMap;
+    private final short[] terrainBuffer = new short[MAP_SIZE * MAP_SIZE];
+    private ChunkData data;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HeadlessGdx.start();
+        assets = new GameAssets();
+        assets.finishLoading();
+        generator = new MapGenerator(seed, assets.tileCells());
+        String[] coordinates = chunk.split(":");
+        int chunkX = Integer.parseInt(coordinates[0].trim());
+        int chunkY = Integer.parseInt(coordinates[1].trim());
+        xOffset = chunkX * MAP_SIZE;
+        yOffset = chunkY * MAP_SIZE;
+
+        biomeMap = generator.generateNoise(xOffset, yOffset);
+        terrainMap = generator.generateTerrain(biomeMap, xOffset, yOffset, new short[MAP_SIZE * MAP_SIZE]);
+        data = generator.generateChunk(chunkX, chunkY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        assets.dispose();
+        HeadlessGdx.stop();
+    }
+
+    // the whole worker side of a chunk: noise, roads and structures, objects
+    @Benchmark
+    public ChunkData generateChunk() {
+        return generator.generateChunk(xOffset / MAP_SIZE, yOffset / MAP_SIZE);
+    }
+
+    @Benchmark
+    public int[][] generateNoise() {
+        return generator.generateNoise(xOffset, yOffset);
+    }
+
+    // the terrain generator keeps one Random for the whole world, each call continues its sequence like a new chunk would
+    @Benchmark
+    public short[] generateTerrain() {
+        return generator.generateTerrain(biomeMap, xOffset, yOffset, terrainBuffer);
+    }
+
+    // roads, decorations, structures and ocean outlines
+    @Benchmark
+    public MapObjects generateObjects() {
+        return generator.generateObjects(biomeMap, terrainMap, new boolean[MAP_SIZE][MAP_SIZE], xOffset * itemSize, yOffset * itemSize);
+    }
+
+    // marching squares and simplification of every coastline, empty for chunks without ocean
+    @Benchmark
+    public Array<float[]> traceOceanContours() {
+        return OceanContours.trace(biomeMap, xOffset * itemSize, yOffset * itemSize);
+    }
+
+    // the GL thread side, the map is not disposed as it owns no textures
+    @Benchmark
+    public TiledMap convertToTiledMap() {
+        return generator.convertToTiledMap(data);
+    }
+}
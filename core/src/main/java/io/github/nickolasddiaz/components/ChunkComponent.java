@@ -1,20 +1,20 @@
 package io.github.nickolasddiaz.components;
 
 import com.badlogic.ashley.core.Component;
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.maps.MapObjects;
-import com.badlogic.gdx.maps.objects.PolygonMapObject;
 import com.badlogic.gdx.maps.objects.RectangleMapObject;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.math.Polygon;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
+import io.github.nickolasddiaz.utils.ChunkBodyManager;
+import io.github.nickolasddiaz.utils.ChunkRegistry;
 import io.github.nickolasddiaz.utils.CollisionCategory;
+import io.github.nickolasddiaz.utils.GameAssets;
 import io.github.nickolasddiaz.utils.WorldGraph;
 import java.util.*;
 
@@ -29,28 +29,32 @@ import static io.github.nickolasddiaz.utils.MapGenerator.*;
 
 public class ChunkComponent implements Component {
     public ShapeRenderer shapeRenderer = new ShapeRenderer();
-    public HashMap<Vector2, TiledMap> mapChunks = new HashMap<>();
-    public HashMap<Vector2, boolean[][]> walkChunks = new HashMap<>();
+    public final ChunkRegistry registry = new ChunkRegistry();
     public Vector2 currentChunk = new Vector2(0, 0);
     public Random random = new Random(System.currentTimeMillis());
     public float carWidth = 64/TILE_PER_METER;
-    public WorldGraph pathfindingGraph;
+    public final WorldGraph pathfindingGraph = new WorldGraph(); // recentered by ChunkSystem
     public CollisionCategory category;
     private StatsComponent statsComponent;
     private SettingsComponent settingsComponent;
 
-    private final Sound car_sound = Gdx.audio.newSound(Gdx.files.internal("sounds/destroy_car.mp3"));
-    private final Sound tank_sound = Gdx.audio.newSound(Gdx.files.internal("sounds/destroy_tank.mp3"));
-    private final Sound house_sound = Gdx.audio.newSound(Gdx.files.internal("sounds/house_destroy.mp3"));
-    private final Sound deflect_sound = Gdx.audio.newSound(Gdx.files.internal("sounds/tank_deflect.mp3"));
+    private final Sound car_sound;
+    private final Sound tank_sound;
+    private final Sound house_sound;
+    private final Sound deflect_sound;
 
     public World world;
-    // Store bodies for each chunk to manage cleanup
-    private final HashMap<Vector2, ArrayList<Body>> chunkBodies = new HashMap<>();
-
-    public ChunkComponent() {
+    // Static bodies of the active chunks
+    public final ChunkBodyManager chunkBodies;
+
+    public ChunkComponent(GameAssets assets) {
+        car_sound = assets.sound(GameAssets.CAR_SOUND);
+        tank_sound = assets.sound(GameAssets.TANK_SOUND);
+        house_sound = assets.sound(GameAssets.HOUSE_SOUND);
+        deflect_sound = assets.sound(GameAssets.DEFLECT_SOUND);
         this.world = new World(new Vector2(0, 0), true);
         category = new CollisionCategory();
+        chunkBodies = new ChunkBodyManager(world, category);
         world.setContactListener(GameContactListener);
         shapeRenderer.setAutoShapeType(true);
     }
@@ -58,54 +62,6 @@ public class ChunkComponent implements Component {
         this.statsComponent = statsComponent;
         this.settingsComponent = settingsComponent;
     }
-    // Helper method to create a body for a rectangle object
-    public Body createRectangleBody(World world, Rectangle rect, short category) {
-        BodyDef bodyDef = new BodyDef();
-        bodyDef.type = BodyDef.BodyType.StaticBody;
-        bodyDef.position.set((rect.x + rect.width/2), (rect.y + rect.height/2));
-
-        PolygonShape shape = new PolygonShape();
-        shape.setAsBox(rect.width/2, rect.height/2);
-
-        FixtureDef fixtureDef = new FixtureDef();
-        fixtureDef.shape = shape;
-        fixtureDef.density = 1.0f;
-        fixtureDef.filter.categoryBits = category;
-        fixtureDef.filter.maskBits = categoryToFilterBits(category);
-        fixtureDef.isSensor = (category == DECORATION || category == HORIZONTAL_ROAD || category == VERTICAL_ROAD);
-
-        Body body = world.createBody(bodyDef);
-        body.createFixture(fixtureDef);
-
-        shape.dispose();
-        return body;
-    }
-
-    // Helper method to create a body for a polygon object
-    public Body createChainShape(World world, Polygon polygon, short category) {
-        BodyDef bodyDef = new BodyDef();
-        bodyDef.type = BodyDef.BodyType.StaticBody;
-        bodyDef.position.set(polygon.getX(), polygon.getY());
-        bodyDef.angle = (float)Math.toRadians(polygon.getRotation());
-
-        ChainShape shape = new ChainShape();
-        float[] vertices = polygon.getVertices();
-
-        shape.createLoop(vertices);
-
-        FixtureDef fixtureDef = new FixtureDef();
-        fixtureDef.shape = shape;
-        fixtureDef.density = 1.0f;
-        fixtureDef.filter.categoryBits = category;
-        fixtureDef.filter.maskBits = categoryToFilterBits(category);
-
-        Body body = world.createBody(bodyDef);
-        body.createFixture(fixtureDef);
-
-        shape.dispose();
-        return body;
-    }
-
 public Vector2 getPointEnemySpawn(Vector2 playerPosition) {
     // Assuming itemSize and chunkSize are class member variables or available in scope
     final float querySize = itemSize * 2;
@@ -140,6 +96,17 @@ public Vector2 getPointEnemySpawn(Vector2 playerPosition) {
 }
 
 
+    public Fixture[] getFixturesInRect(Rectangle rect, short categoryBits) {
+        ArrayList<Fixture> result = new ArrayList<>();
+        world.QueryAABB(fixture -> {
+            if ((fixture.getFilterData().categoryBits & categoryBits) != 0) {
+                result.add(fixture);
+            }
+            return true;
+        }, rect.x, rect.y, rect.x + rect.width, rect.y + rect.height);
+        return result.toArray(new Fixture[0]);
+    }
+
     public Body[] getBodiesInRect(Rectangle rect, short categoryBits) {
         ArrayList<Body> result = new ArrayList<>();
         world.QueryAABB(fixture -> {
@@ -152,71 +119,13 @@ public Vector2 getPointEnemySpawn(Vector2 playerPosition) {
     }
 
 
-    // Cache objects for a specific chunk
-    public void cacheObjects(Vector2 chunkPosition, TiledMap chunkMap) {
-        ArrayList<Body> bodies = new ArrayList<>();
-        MapObjects objects = chunkMap.getLayers().get("OBJECTS").getObjects();
-
-
-        objects.forEach(obj -> {
-            if (obj.getName() != null) {
-                Body body;
-                if (obj instanceof RectangleMapObject) {
-                    RectangleMapObject rectObj = (RectangleMapObject) obj;
-                    body = createRectangleBody(world, rectObj.getRectangle(), category.getFilterBit(rectObj.getName()));
-                    bodies.add(body);
-                } else if (obj instanceof PolygonMapObject) {
-                    PolygonMapObject polyObj = (PolygonMapObject) obj;
-                     body = createChainShape(world, polyObj.getPolygon(), category.getFilterBit(polyObj.getName()));
-                    bodies.add(body);
-                }
-            }
-        });
-        chunkBodies.put(chunkPosition, bodies);
-    }
-
-    // Clear Box2D bodies for unloaded chunks
-    public void clearChunkBodies(Vector2 chunkPosition) {
-        ArrayList<Body> bodies = chunkBodies.get(chunkPosition);
-        if (bodies != null) {
-            for (Body body : bodies) {
-                world.destroyBody(body);
-            }
-            bodies.clear();
-            chunkBodies.remove(chunkPosition);
-        }
-    }
-
-    public void cacheObjectsNodes() {
-        boolean[][] walkableGrid = new boolean[ALL_CHUNK_SIZE][ALL_CHUNK_SIZE];
-        // Initialize all cells as walkable
-        for (boolean[] row : walkableGrid) {
-            Arrays.fill(row, true);
-        }
-        for (Map.Entry<Vector2, boolean[][]> entry : walkChunks.entrySet()) {
-            boolean[][] nonWalkGrid = entry.getValue();
-            Vector2 chunkPosition = entry.getKey().cpy();
-            chunkPosition.x = (chunkPosition.x - currentChunk.x) * MAP_SIZE + MAP_SIZE;
-            chunkPosition.y = (chunkPosition.y - currentChunk.y) * MAP_SIZE + MAP_SIZE;
-
-            for (int x = 0; x < nonWalkGrid.length; x++) {
-                for (int y = 0; y < nonWalkGrid[x].length; y++) {
-                    if (nonWalkGrid[x][y]) {
-                        walkableGrid[(int) chunkPosition.x + x][(int) chunkPosition.y + y] = false;
-                    }
-                }
-            }
-        }
-
-        // Create the pathfinding graph
-        pathfindingGraph = new WorldGraph(walkableGrid, currentChunk);
-    }
-
     public void destroyStructure(Vector2 position) {
         Vector2 grid = worldToGridCoordinates(position);
         Vector2 mapPosition = new Vector2(grid.x % MAP_SIZE-itemSize, grid.y % MAP_SIZE-itemSize/2);
         // Get the chunk map based on the chunk position
-        TiledMap chunkMap = mapChunks.get(getChunkPosition(position));
+        ChunkRegistry.Chunk active = registry.chunkAt(position.x, position.y);
+        if (active == null) return;
+        TiledMap chunkMap = active.map;
         // Retrieve the desired layer 2 where the structure resides
         TiledMapTileLayer layer = (TiledMapTileLayer) chunkMap.getLayers().get(1);
         // Remove the tile at the calculated map position
@@ -239,24 +148,14 @@ public Vector2 getPointEnemySpawn(Vector2 playerPosition) {
         });
     }
 
-    public Vector2 getChunkPosition(Vector2 position) {
-        return new Vector2((int) Math.floor(position.x / chunkSize), (int) Math.floor(position.y / chunkSize));
-    }
-
     // assist with coordinate conversion
     public Vector2 worldToGridCoordinates(Vector2 world) {// moving units of the three chunks into an array of ALL_CHUNK_SIZE or 240 tiles
-        float gridX = (world.x - (currentChunk.x * chunkSize)) / itemSize + MAP_SIZE;
-        float gridY = (world.y - (currentChunk.y * chunkSize)) / itemSize + MAP_SIZE;
-
-        return new Vector2((int) gridX, (int) gridY);
+        return pathfindingGraph.worldToGrid(world);
     }
 
     // assist with coordinate conversion
-    public Vector2 GridToWorldCoordinates(Vector2 grid) { // moving an array of ALL_CHUNK_SIZE or 240 tiles into units of the three chunks
-        return new Vector2(
-            currentChunk.x * chunkSize  + (grid.x * itemSize) - chunkSize,
-            currentChunk.y * chunkSize  + (grid.y * itemSize) - chunkSize
-        );
+    public Vector2 GridToWorldCoordinates(int cell) { // moving a cell of the ALL_CHUNK_SIZE or 240 tiles grid into units of the three chunks
+        return pathfindingGraph.cellToWorld(cell);
     }
 
     ContactListener GameContactListener = new ContactListener() {
@@ -321,7 +220,7 @@ public Vector2 getPointEnemySpawn(Vector2 playerPosition) {
 
                 case STRUCTURE:
                     if ((categoryB & (PLAYER | ALLY | ENEMY)) != 0) {
-                        structure((TransformComponent) fixtureB.getBody().getUserData(), fixtureA.getBody());
+                        structure((TransformComponent) fixtureB.getBody().getUserData(), fixtureA);
                     } else if ((categoryB & (P_BULLET | P_MISSILE | P_MINE | E_BULLET | E_MISSILE | E_MINE)) != 0) {
                         ((TransformComponent) fixtureB.getBody().getUserData()).health = 0;
                     }
@@ -367,11 +266,10 @@ public Vector2 getPointEnemySpawn(Vector2 playerPosition) {
     };
 
 
-    public void structure(TransformComponent transformB, Body bodyA){
-        if(transformB.stats.CanDestroy) {
+    public void structure(TransformComponent transformB, Fixture fixtureA){
+        if(transformB.stats.CanDestroy && chunkBodies.destroyFixtureLater(fixtureA)) {
                 house_sound.play(settingsComponent.sfxVolume);
-                destroyStructure(bodyA.getPosition());
-                bodyA.setUserData(true);
+                destroyStructure(ChunkBodyManager.positionOf(fixtureA, new Vector2()));
           }
     }
 
@@ -6,17 +6,25 @@ import com.badlogic.gdx.ai.pfa.GraphPath;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import io.github.nickolasddiaz.utils.EntityStats;
-import io.github.nickolasddiaz.utils.GraphNode;
+import io.github.nickolasddiaz.utils.PathfindingService;
 
 import static io.github.nickolasddiaz.utils.MapGenerator.itemSize;
 
 public class EnemyComponent implements Component {
+    // how a tank finds its way to the player
+    public enum Navigation {
+        FLOW_FIELD, // steers by the field EnemySystem keeps toward the player, shared by all tanks using it
+        PATH,       // searches a path of its own
+        JUMP_POINT  // same as PATH, with jump point search for the searches A* would do
+    }
+
     public EntityStats stats;
 
     public float enemyType;
+    public Navigation navigation = Navigation.FLOW_FIELD;
     public float minDistance = 4f*itemSize;
-    public GraphPath<GraphNode> path;
-    public GraphPath<GraphNode> previousPath;
+    public GraphPath<Integer> path; // cells of the WorldGraph
+    public final PathfindingService.Request pathRequest = new PathfindingService.Request(); // swaps its result with path
     public final Rectangle lazyPath = new Rectangle();
     public Vector2 nextPathWorld = new Vector2();
     public int pathIndex = 0;
@@ -28,7 +36,6 @@ public class EnemyComponent implements Component {
     public EnemyComponent(float enemyType, EntityStats stats) {
         this.enemyType = enemyType;
         this.path = new DefaultGraphPath<>();
-        this.previousPath = null; // Will be set when first valid path is found
         this.stats = stats;
     }
 }
@@ -0,0 +1,75 @@
+package io.github.nickolasddiaz.screens;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.utils.ScreenUtils;
+import io.github.nickolasddiaz.utils.GameAssets;
+import io.github.nickolasddiaz.yourgame;
+
+// Shown on the first start while GameAssets loads, the skin is not there yet so the progress bar is drawn with shapes
+public class LoadingScreen implements Screen {
+
+    final yourgame game;
+    private final GameAssets assets;
+    private final ShapeRenderer shapeRenderer = new ShapeRenderer();
+
+    public LoadingScreen(final yourgame game, GameAssets assets) {
+        this.game = game;
+        this.assets = assets;
+    }
+
+    @Override
+    public void show() {
+
+    }
+
+    @Override
+    public void render(float delta) {
+        if (assets.update()) {
+            game.create(); // builds the game and moves on to the main menu
+            dispose();
+            return;
+        }
+        ScreenUtils.clear(Color.BLACK);
+
+        float barWidth = Gdx.graphics.getWidth() / 2f;
+        float barHeight = Gdx.graphics.getHeight() / 30f;
+        float barX = Gdx.graphics.getWidth() / 2f - barWidth / 2f;
+        float barY = Gdx.graphics.getHeight() / 2f - barHeight / 2f;
+
+        shapeRenderer.getProjectionMatrix().setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+        shapeRenderer.setColor(Color.DARK_GRAY);
+        shapeRenderer.rect(barX, barY, barWidth, barHeight);
+        shapeRenderer.setColor(Color.WHITE);
+        shapeRenderer.rect(barX, barY, barWidth * assets.getProgress(), barHeight);
+        shapeRenderer.end();
+    }
+
+    @Override
+    public void resize(int width, int height) {
+
+    }
+
+    @Override
+    public void pause() {
+
+    }
+
+    @Override
+    public void resume() {
+
+    }
+
+    @Override
+    public void hide() {
+
+    }
+
+    @Override
+    public void dispose() {
+        shapeRenderer.dispose();
+    }
+}
@@ -2,7 +2,6 @@ package io.github.nickolasddiaz.systems;
 
 import com.badlogic.ashley.core.Engine;
 import com.badlogic.ashley.core.Entity;
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.Vector2;
@@ -26,13 +25,13 @@ public class BulletFactory {
     private final SettingsComponent settings;
     private final Sound bulletSound;
 
-    public BulletFactory(World world, Engine engine, Skin skin, ChunkComponent chunk, SettingsComponent settings) {
+    public BulletFactory(World world, Engine engine, Skin skin, ChunkComponent chunk, SettingsComponent settings, Sound bulletSound) {
         this.world = world;
         this.engine = engine;
         this.skin = skin;
         this.chunk = chunk;
         this.settings = settings;
-        bulletSound = Gdx.audio.newSound(Gdx.files.internal("sounds/shoot_bullet.mp3"));
+        this.bulletSound = bulletSound;
     }
 
     public void createBullet(Vector2 position, float rotation, float speed, int damage, float size, Color color, boolean team) {
@@ -35,7 +35,7 @@ public class BulletSystem extends IteratingSystem {
         }
 
         // Check if bullet is out of bounds
-        if (!chunk.mapChunks.containsKey(chunk.getChunkPosition(transform.getPosition()))) {
+        if (!chunk.registry.isActiveAt(transform.getPosition().x, transform.getPosition().y)) {
             transform.health = 0;
             return;
         }
@@ -5,9 +5,10 @@ import com.badlogic.ashley.core.Entity;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import io.github.nickolasddiaz.components.*;
+import io.github.nickolasddiaz.utils.ChunkBodyManager;
 
 import static io.github.nickolasddiaz.utils.CollisionCategory.*;
 import static io.github.nickolasddiaz.utils.MapGenerator.*;
@@ -28,11 +29,12 @@ public class CarFactory {
         Entity tank = engine.createEntity();
         CarComponent carComponent;
 
-        Body[] rect = chunkComponent.getBodiesInRect(new Rectangle(0,0,chunkSize,chunkSize), HORIZONTAL_ROAD); // search within the center chunk
-        if(rect == null || rect.length == 0) rect = chunkComponent.getBodiesInRect(new Rectangle(-chunkSize,-chunkSize,2*chunkSize,2*chunkSize), HORIZONTAL_ROAD); // search within the 3x3 chunks
+        Fixture[] rect = chunkComponent.getFixturesInRect(new Rectangle(0,0,chunkSize,chunkSize), HORIZONTAL_ROAD); // search within the center chunk
+        if(rect == null || rect.length == 0) rect = chunkComponent.getFixturesInRect(new Rectangle(-chunkSize,-chunkSize,2*chunkSize,2*chunkSize), HORIZONTAL_ROAD); // search within the 3x3 chunks
 
-        Body road = rect[chunkComponent.random.nextInt(Math.abs(rect.length))];
-        Rectangle roadRect = new Rectangle(road.getPosition().x, road.getPosition().y, road.getFixtureList().get(0).getShape().getRadius() * 2, road.getFixtureList().get(0).getShape().getRadius() * 2);
+        Fixture road = rect[chunkComponent.random.nextInt(Math.abs(rect.length))];
+        Vector2 roadCenter = ChunkBodyManager.positionOf(road, new Vector2());
+        Rectangle roadRect = new Rectangle(roadCenter.x, roadCenter.y, road.getShape().getRadius() * 2, road.getShape().getRadius() * 2);
 
         // Create car component
         boolean isRight = chunkComponent.random.nextBoolean();
@@ -33,7 +33,7 @@ public class CarSystem extends IteratingSystem {
         Body body = transform.body;
 
          //Check if in a valid chunk
-        if (!chunk.mapChunks.containsKey(chunk.getChunkPosition(transform.getPosition()))) {
+        if (!chunk.registry.isActiveAt(transform.getPosition().x, transform.getPosition().y)) {
             transform.health = 0;
             return;
         }
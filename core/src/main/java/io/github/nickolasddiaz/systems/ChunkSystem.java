@@ -5,18 +5,23 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.maps.MapObject;
-import com.badlogic.gdx.maps.MapObjects;
 import com.badlogic.gdx.maps.objects.PolygonMapObject;
 import com.badlogic.gdx.maps.objects.RectangleMapObject;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.*;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
 import com.badlogic.gdx.utils.TimeUtils;
 import io.github.nickolasddiaz.components.*;
+import io.github.nickolasddiaz.utils.ChunkBodyManager;
+import io.github.nickolasddiaz.utils.ChunkCache;
+import io.github.nickolasddiaz.utils.ChunkData;
+import io.github.nickolasddiaz.utils.ChunkLoader;
+import io.github.nickolasddiaz.utils.ChunkRegistry;
+import io.github.nickolasddiaz.utils.ChunkStore;
 import io.github.nickolasddiaz.utils.MapGenerator;
-
-import java.util.HashMap;
-import java.util.Map;
+import io.github.nickolasddiaz.utils.TileCells;
 
 import static io.github.nickolasddiaz.utils.MapGenerator.*;
 import static io.github.nickolasddiaz.utils.MapGenerator.MAP_SIZE;
@@ -28,8 +33,29 @@ public class ChunkSystem extends EntitySystem {
 
     private final OrthogonalTiledMapRenderer chunkRenderer;
     private final MapGenerator mapGenerator;
+    private final ChunkLoader chunkLoader;
+    private final Array<ChunkData> finishedChunks = new Array<>();
     private final Matrix4 tempMatrix;
     private final int CHUNK_LOAD_RADIUS = 1;
+    private final int PREFETCH_RADIUS = CHUNK_LOAD_RADIUS + 1; // ring of chunks warmed ahead of the player
+    private final float PREFETCH_SECONDS = 2f; // how far ahead of the player to look
+
+    // generated chunks in the prefetch ring are kept READY in the registry, no Box2D bodies or cars until they enter the load radius
+    private int lastPrefetchX = Integer.MIN_VALUE, lastPrefetchY = Integer.MIN_VALUE;
+    private int prefetchHits = 0;
+    private int prefetchMisses = 0; // neither prefetched nor cached, generated while the player waits
+    private int prefetchLate = 0; // prefetched but still generating when the chunk entered the load radius
+
+    // chunks that left the load radius, reused when the player turns around
+    private final int CHUNK_CACHE_CHUNKS = 24;
+    private final long CHUNK_CACHE_BYTES = 16L * 1024 * 1024;
+    private ChunkCache chunkCache;
+
+    // bodies, cars and nav grid of newly active chunks are filled in a few at a time
+    private float activationBudgetMs = 3f;
+    private final Array<Activation> activations = new Array<>();
+    private float activationMillis = 0;
+    private float maxActivationMillis = 0;
 
     // Cache components to avoid repeated lookups
     private ChunkComponent chunk;
@@ -39,7 +65,7 @@ public class ChunkSystem extends EntitySystem {
 
     CarFactory carFactory;
 
-    public ChunkSystem(CarFactory carFactory, TransformComponent transformComponent) {
+    public ChunkSystem(CarFactory carFactory, TransformComponent transformComponent, ChunkStore chunkStore, TileCells tileCells) {
         this.carFactory = carFactory;
 
         // Initialize mappers
@@ -50,7 +76,8 @@ public class ChunkSystem extends EntitySystem {
 
         // Initialize rendering tools
         chunkRenderer = new OrthogonalTiledMapRenderer(null, TILE_SIZE/TILE_PER_METER);
-        mapGenerator = new MapGenerator(MathUtils.random.nextInt());
+        mapGenerator = new MapGenerator(MathUtils.random.nextInt(), tileCells);
+        chunkLoader = new ChunkLoader(mapGenerator, chunkStore);
         tempMatrix = new Matrix4();
     }
 
@@ -65,6 +92,7 @@ public class ChunkSystem extends EntitySystem {
         chunk = chunkMapper.get(player);
         cameraComponent = cameraMapper.get(player);
         settingsComponent = settingsMapper.get(player);
+        chunkCache = new ChunkCache(chunk.registry, CHUNK_CACHE_CHUNKS, CHUNK_CACHE_BYTES);
 
         loadInitialChunks();
     }
@@ -72,6 +100,9 @@ public class ChunkSystem extends EntitySystem {
     @Override
     public void update(float deltaTime) {
         updateCamera(tankComponent.getPosition().x, tankComponent.getPosition().y);
+        prefetchAhead();
+        attachFinishedChunks();
+        runActivations();
         renderChunks();
 
         if (settingsComponent.DEBUG) {
@@ -80,13 +111,12 @@ public class ChunkSystem extends EntitySystem {
     }
 
     private void updateCamera(float cameraX, float cameraY) {
-        int chunkX = (int) Math.floor(cameraX / chunkSize);
-        int chunkY = (int) Math.floor(cameraY / chunkSize);
-        Vector2 newChunk = new Vector2(chunkX, chunkY);
+        int chunkX = ChunkRegistry.toChunk(cameraX);
+        int chunkY = ChunkRegistry.toChunk(cameraY);
 
-        if (!newChunk.equals(chunk.currentChunk)) {
-            chunk.currentChunk.set(newChunk);
-            updateLoadedChunks(newChunk);
+        if (chunkX != chunk.currentChunk.x || chunkY != chunk.currentChunk.y) {
+            chunk.currentChunk.set(chunkX, chunkY);
+            updateLoadedChunks(chunkX, chunkY);
         }
 
         cameraComponent.camera.position.set(cameraX, cameraY, 0);
@@ -103,59 +133,269 @@ public class ChunkSystem extends EntitySystem {
         );
     }
 
-    private void updateLoadedChunks(Vector2 centerChunk) {
-        HashMap<Vector2, TiledMap> newChunks = new HashMap<>();
-        HashMap<Vector2, boolean[][]> tempWalkChunks = new HashMap<>();
-
-
-        // Load new chunks
-        for (int x = (int)centerChunk.x - CHUNK_LOAD_RADIUS; x <= centerChunk.x + CHUNK_LOAD_RADIUS; x++) {
-            for (int y = (int)centerChunk.y - CHUNK_LOAD_RADIUS; y <= centerChunk.y + CHUNK_LOAD_RADIUS; y++) {
-                Vector2 chunkPos = new Vector2(x, y);
-                if (!chunk.mapChunks.containsKey(chunkPos)) {
-                    TiledMap temp = mapGenerator.generateMap(x * MAP_SIZE, y * MAP_SIZE);
-                    tempWalkChunks.put(chunkPos.cpy(), mapGenerator.getNotWalkableGrid()); // new Vector2(chunkPos) to avoid reference issues
-                    spawnCars(temp.getLayers().get("OBJECTS").getObjects());
-                    newChunks.put(chunkPos, temp);
-                    chunk.cacheObjects(chunkPos, temp);  // Cache objects for new chunk
+    private void updateLoadedChunks(int centerX, int centerY) {
+        chunk.pathfindingGraph.setCenter(centerX, centerY);
+
+        // Request missing chunks, they are attached once a worker finishes them
+        for (int x = centerX - CHUNK_LOAD_RADIUS; x <= centerX + CHUNK_LOAD_RADIUS; x++) {
+            for (int y = centerY - CHUNK_LOAD_RADIUS; y <= centerY + CHUNK_LOAD_RADIUS; y++) {
+                ChunkRegistry.Chunk known = chunk.registry.get(x, y);
+                ChunkRegistry.State state = known == null ? null : known.state;
+                if (state == ChunkRegistry.State.ACTIVE) continue; // keeps its bodies
+                if (state == ChunkRegistry.State.READY) {
+                    attachChunk(known.data);
+                    prefetchHits++;
+                } else if (state == ChunkRegistry.State.GENERATING) {
+                    prefetchLate++; // attached when the worker finishes, the cache cannot have it
                 } else {
-                    newChunks.put(chunkPos, chunk.mapChunks.get(chunkPos));
-                    tempWalkChunks.put(chunkPos.cpy(), chunk.walkChunks.get(chunkPos));
-                    // re-cache existing chunk's objects
-                    chunk.cacheObjects(chunkPos, chunk.mapChunks.get(chunkPos));
+                    ChunkRegistry.Chunk cached = chunkCache.take(x, y);
+                    if (cached != null) {
+                        activateChunk(x, y, cached.map, cached.notWalkableGrid, cached.terrainMap); // counted in the cache hits
+                    } else {
+                        prefetchMisses++;
+                        requestChunk(x, y);
+                    }
                 }
             }
         }
 
-        for (Vector2 chunkPos : chunk.mapChunks.keySet()) {
-            if (!newChunks.containsKey(chunkPos)) {
-                chunk.clearChunkBodies(chunkPos);
+        Array<ChunkRegistry.Chunk> active = chunk.registry.getActive();
+        for (int i = active.size - 1; i >= 0; i--) {
+            ChunkRegistry.Chunk loaded = active.get(i);
+            if (!isInLoadRadius(loaded.x, loaded.y)) {
+                cancelActivation(loaded);
+                chunk.chunkBodies.deactivate(loaded.key);
+                chunkCache.put(loaded); // leaves the active list as EVICTED
+            }
+        }
+        LongMap.Values<ChunkRegistry.Chunk> known = chunk.registry.all();
+        while (known.hasNext()) {
+            ChunkRegistry.Chunk ready = known.next();
+            if (ready.state == ChunkRegistry.State.READY && !isInRadius(ready.x, ready.y, PREFETCH_RADIUS)) {
+                known.remove();
+            }
+        }
+
+        if (settingsComponent.DEBUG) {
+            Gdx.app.log("ChunkSystem", "prefetch hits: " + prefetchHits + " late: " + prefetchLate + " misses: " + prefetchMisses
+                + " | cache hits: " + chunkCache.getHits() + " misses: " + chunkCache.getMisses()
+                + " evictions: " + chunkCache.getEvictions() + " chunks: " + chunkCache.size() + " bytes: " + chunkCache.getBytes()
+                +  " | static fixtures: " + chunk.chunkBodies.getFixtureCount() + " in " + chunk.chunkBodies.getChunkCount() + " chunks"
+                + " | activation ms: " + activationMillis + " max: " + maxActivationMillis + " queued: " + activations.size);
+        }
+    }
+
+    // Warm the chunks the player is heading into so they are ready before the border is crossed
+    private void prefetchAhead() {
+        Vector2 position = tankComponent.getPosition();
+        float dirX = tankComponent.velocity.x;
+        float dirY = tankComponent.velocity.y;
+        if (tankComponent.velocity.len2() < 0.01f) {
+            if (tankComponent.stats == null) return;
+            // standing still, assume it drives the way it is facing
+            float angleRad = (float) Math.toRadians(tankComponent.rotation);
+            dirX = MathUtils.cos(angleRad) * tankComponent.stats.speed;
+            dirY = MathUtils.sin(angleRad) * tankComponent.stats.speed;
+        }
+
+        // never look further than one chunk so the ring stays next to the load radius
+        float lookAhead = Math.min(PREFETCH_SECONDS, chunkSize / Math.max(Vector2.len(dirX, dirY), 0.01f));
+        int aheadX = (int) Math.floor((position.x + dirX * lookAhead) / chunkSize);
+        int aheadY = (int) Math.floor((position.y + dirY * lookAhead) / chunkSize);
+
+        if (aheadX == lastPrefetchX && aheadY == lastPrefetchY) return;
+        lastPrefetchX = aheadX;
+        lastPrefetchY = aheadY;
+
+        for (int x = aheadX - CHUNK_LOAD_RADIUS; x <= aheadX + CHUNK_LOAD_RADIUS; x++) {
+            for (int y = aheadY - CHUNK_LOAD_RADIUS; y <= aheadY + CHUNK_LOAD_RADIUS; y++) {
+                if (isInLoadRadius(x, y)) continue; // handled by updateLoadedChunks
+                if (chunk.registry.get(x, y) != null) continue; // generating, ready or cached already
+                requestChunk(x, y);
+            }
+        }
+    }
+
+    // Attach the chunks the workers finished since the last frame
+    private void attachFinishedChunks() {
+        chunkLoader.collectFinished(finishedChunks);
+        if (finishedChunks.isEmpty()) return;
+
+        for (ChunkData data : finishedChunks) {
+            if (chunk.registry.getState(data.chunkX, data.chunkY) != ChunkRegistry.State.GENERATING) continue; // came back from the cache meanwhile
+            if (isInLoadRadius(data.chunkX, data.chunkY)) { // the player may have moved on while it was generating
+                attachChunk(data);
+            } else if (isInRadius(data.chunkX, data.chunkY, PREFETCH_RADIUS)) {
+                chunk.registry.markReady(data);
+            } else {
+                chunk.registry.remove(ChunkRegistry.key(data.chunkX, data.chunkY));
+            }
+        }
+        finishedChunks.clear();
+    }
+
+    private void requestChunk(int x, int y) {
+        chunk.registry.markGenerating(x, y);
+        chunkLoader.request(x, y);
+    }
+
+    private void attachChunk(ChunkData data) {
+        activateChunk(data.chunkX, data.chunkY, mapGenerator.convertToTiledMap(data), data.notWalkableGrid, data.terrainMap);
+    }
+
+    private void activateChunk(int x, int y, TiledMap temp, boolean[][] notWalkableGrid, short[] terrainMap) {
+        // rendered and counted as loaded right away, bodies and cars follow in runActivations
+        activations.add(new Activation(chunk.registry.activate(x, y, temp, notWalkableGrid, terrainMap), ChunkBodyManager.objectsOf(temp)));
+    }
+
+    // drains queued activation steps until this frame's budget is spent
+    private void runActivations() {
+        if (activations.isEmpty()) {
+            activationMillis = 0;
+            return;
+        }
+        long start = TimeUtils.nanoTime();
+        drainActivations(start + (long) (activationBudgetMs * 1000000));
+        activationMillis = (TimeUtils.nanoTime() - start) / 1000000f;
+        maxActivationMillis = Math.max(maxActivationMillis, activationMillis);
+    }
+
+    // runs at least one step even when the deadline has already passed so activation always makes progress
+    private void drainActivations(long deadlineNanos) {
+        do {
+            Activation next = nextActivation();
+            if (next.step(deadlineNanos)) activations.removeValue(next, true);
+        } while (activations.notEmpty() && TimeUtils.nanoTime() < deadlineNanos);
+    }
+
+    // the chunk the player is heading into first, then the ones closest to it
+    private Activation nextActivation() {
+        int headingX = lastPrefetchX == Integer.MIN_VALUE ? (int) chunk.currentChunk.x : lastPrefetchX;
+        int headingY = lastPrefetchY == Integer.MIN_VALUE ? (int) chunk.currentChunk.y : lastPrefetchY;
+        Activation best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Activation activation : activations) {
+            int distance = Math.max(Math.abs(activation.target.x - headingX), Math.abs(activation.target.y - headingY));
+            if (distance < bestDistance) {
+                best = activation;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    private void cancelActivation(ChunkRegistry.Chunk deactivated) {
+        for (int i = activations.size - 1; i >= 0; i--) {
+            if (activations.get(i).target == deactivated) activations.removeIndex(i);
+        }
+    }
+
+    // resumable activation of one chunk, Box2D bodies first, then the cars on its roads and last its part of the nav grid
+    private class Activation {
+        final ChunkRegistry.Chunk target;
+        final Array<MapObject> objects;
+        int bodyIndex = 0;
+        int carIndex = 0;
+
+        Activation(ChunkRegistry.Chunk target, Array<MapObject> objects) {
+            this.target = target;
+            this.objects = objects;
+        }
+
+        // returns true once the chunk is fully active
+        boolean step(long deadlineNanos) {
+            if (bodyIndex < objects.size) {
+                bodyIndex = chunk.chunkBodies.activate(target.key, objects, bodyIndex, deadlineNanos);
+                return false;
             }
+            if (carIndex < objects.size) {
+                carIndex = spawnCars(objects, carIndex, deadlineNanos);
+                return false;
+            }
+            chunk.pathfindingGraph.setChunk(target.x, target.y, target.notWalkableGrid, target.terrainMap);
+            return true;
         }
+    }
+
+    private boolean isInLoadRadius(int chunkX, int chunkY) {
+        return isInRadius(chunkX, chunkY, CHUNK_LOAD_RADIUS);
+    }
+
+    private boolean isInRadius(int chunkX, int chunkY, int radius) {
+        return Math.abs(chunkX - chunk.currentChunk.x) <= radius && Math.abs(chunkY - chunk.currentChunk.y) <= radius;
+    }
+
+    public int getPrefetchHits() {
+        return prefetchHits;
+    }
+
+    public int getPrefetchMisses() {
+        return prefetchMisses;
+    }
+
+    public int getPrefetchLate() {
+        return prefetchLate;
+    }
+
+    public ChunkCache getChunkCache() {
+        return chunkCache;
+    }
+
+    public void setActivationBudget(float milliseconds) {
+        activationBudgetMs = milliseconds;
+    }
+
+    // time spent on chunk activation in the last frame
+    public float getActivationMillis() {
+        return activationMillis;
+    }
 
-        chunk.walkChunks.clear();
-        chunk.walkChunks.putAll(tempWalkChunks);
+    public float getMaxActivationMillis() {
+        return maxActivationMillis;
+    }
 
-        chunk.mapChunks.clear();
-        chunk.mapChunks.putAll(newChunks);
-        chunk.cacheObjectsNodes();
+    public int getQueuedActivations() {
+        return activations.size;
     }
 
     private void loadInitialChunks() {
+        // the first chunks are needed right away, the workers generate them side by side and this waits for all of them
+        chunk.pathfindingGraph.setCenter(0, 0);
         for (int x = -CHUNK_LOAD_RADIUS; x <= CHUNK_LOAD_RADIUS; x++) {
             for (int y = -CHUNK_LOAD_RADIUS; y <= CHUNK_LOAD_RADIUS; y++) {
-                Vector2 chunkPos = new Vector2(x, y);
-                TiledMap temp = mapGenerator.generateMap(x * MAP_SIZE, y * MAP_SIZE);
-                spawnCars(temp.getLayers().get("OBJECTS").getObjects());
-                chunk.cacheObjects(chunkPos, temp);
-                chunk.walkChunks.put(chunkPos.cpy(), mapGenerator.getNotWalkableGrid());
-                chunk.mapChunks.put(chunkPos, temp);
+                requestChunk(x, y);
             }
         }
-        chunk.cacheObjectsNodes();
+        chunkLoader.finishAll(finishedChunks);
+        if (settingsComponent.DEBUG) checkAgainstSequential(finishedChunks);
+        for (ChunkData data : finishedChunks) {
+            attachChunk(data);
+        }
+        finishedChunks.clear();
+        if (activations.notEmpty()) drainActivations(Long.MAX_VALUE);
     }
-    private void spawnCars(MapObjects objects) {
-        for (MapObject object : objects) {
+
+    // generates the chunks again one after another on this thread, any difference means generation depends on order or shares state
+    private void checkAgainstSequential(Array<ChunkData> loaded) {
+        int mismatches = 0;
+        for (ChunkData data : loaded) {
+            if (!data.sameContent(mapGenerator.generateChunk(data.chunkX, data.chunkY))) {
+                Gdx.app.error("ChunkSystem", "chunk " + data.chunkX + ", " + data.chunkY + " differs from sequential generation");
+                mismatches++;
+            }
+        }
+        Gdx.app.log("ChunkSystem", loaded.size + " parallel chunks checked, " + mismatches + " differ from sequential generation");
+    }
+
+    public void dispose() {
+        chunkLoader.dispose();
+    }
+
+    // spawns the cars of objects from the given index on until the deadline passes, returns the index to resume from
+    private int spawnCars(Array<MapObject> objects, int from, long deadlineNanos) {
+        int i = from;
+        while (i < objects.size) {
+            MapObject object = objects.get(i++);
             if (object instanceof RectangleMapObject) {
                 //if(chunk.random.nextFloat() < .6) continue; // 1/3 chance
                 if ("HORIZONTAL".equals(object.getName())) {
@@ -176,7 +416,9 @@ public class ChunkSystem extends EntitySystem {
                         false);
                 }
             }
+            if (TimeUtils.nanoTime() >= deadlineNanos) break;
         }
+        return i;
     }
 
     private void renderChunks() {
@@ -184,14 +426,13 @@ public class ChunkSystem extends EntitySystem {
         float cameraHeight = cameraComponent.camera.viewportHeight / 2;
         float cameraWidth = cameraComponent.camera.viewportWidth / 2;
 
-        for (Map.Entry<Vector2, TiledMap> entry : chunk.mapChunks.entrySet()) {
-            Vector2 chunkPos = entry.getKey();
-            float offsetX = chunkPos.x * chunkSize;
-            float offsetY = chunkPos.y * chunkSize;
+        for (ChunkRegistry.Chunk active : chunk.registry.getActive()) {
+            float offsetX = active.x * chunkSize;
+            float offsetY = active.y * chunkSize;
 
             if (!isChunkVisible(offsetX, offsetY)) continue;
 
-            renderChunk(entry.getValue(), offsetX, offsetY, cameraWidth, cameraHeight);
+            renderChunk(active.map, offsetX, offsetY, cameraWidth, cameraHeight);
         }
     }
     private void renderChunk(TiledMap chunk, float offsetX, float offsetY, float cameraWidth, float cameraHeight) {
@@ -214,10 +455,10 @@ public class ChunkSystem extends EntitySystem {
         chunk.shapeRenderer.setProjectionMatrix(cameraComponent.camera.combined);
         chunk.shapeRenderer.begin(ShapeRenderer.ShapeType.Line);
         chunk.shapeRenderer.setColor(Color.RED);
-        for (Map.Entry<Vector2, TiledMap> entry : chunk.mapChunks.entrySet()) {
-            chunk.shapeRenderer.rect(entry.getKey().x * chunkSize, entry.getKey().y * chunkSize, chunkSize, chunkSize);
+        for (ChunkRegistry.Chunk active : chunk.registry.getActive()) {
+            chunk.shapeRenderer.rect(active.x * chunkSize, active.y * chunkSize, chunkSize, chunkSize);
 
-            entry.getValue().getLayers().get("OBJECTS").getObjects().forEach(obj -> {
+            active.map.getLayers().get("OBJECTS").getObjects().forEach(obj -> {
                 if (obj instanceof RectangleMapObject) {
                     Rectangle rect = ((RectangleMapObject) obj).getRectangle();
                     chunk.shapeRenderer.rect(rect.x, rect.y, rect.width, rect.height);
@@ -52,6 +52,7 @@ public class EnemyFactory {
         tank.add(transformComponent);
         //(float) statsComponent.getStars() /15
         EnemyComponent enemyComponent = new EnemyComponent(0f, stats.clone(statsComponent.getStars() /15));
+        enemyComponent.navigation = enemyComponent.stats.navigation;
         transformComponent.addEntityStats(enemyComponent.stats);
         tank.add(enemyComponent);
         transformComponent.turretComponent(skin.getSprite("turret"+tankType));
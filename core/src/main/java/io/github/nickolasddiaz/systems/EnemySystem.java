@@ -3,25 +3,45 @@ package io.github.nickolasddiaz.systems;
 import com.badlogic.ashley.core.ComponentMapper;
 import com.badlogic.ashley.core.Engine;
 import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
 import com.badlogic.ashley.core.Family;
 import com.badlogic.ashley.systems.IteratingSystem;
-import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
-import com.badlogic.gdx.ai.pfa.Heuristic;
-import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.ai.pfa.GraphPath;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.Vector2;
 import io.github.nickolasddiaz.components.*;
-import io.github.nickolasddiaz.utils.GraphNode;
+import io.github.nickolasddiaz.utils.FlowField;
+import io.github.nickolasddiaz.utils.OctileDistance;
+import io.github.nickolasddiaz.utils.PathfindingService;
+import io.github.nickolasddiaz.utils.WorldGraph;
 
 import static io.github.nickolasddiaz.utils.MapGenerator.*;
 
 public class EnemySystem extends IteratingSystem {
+    private static final int FLOW_LOOK_AHEAD = 4; // cells down the flow field a tank aims at, smooths out the 8-way steps
+
     private final ComponentMapper<EnemyComponent> enemyMapper;
     private final ComponentMapper<TransformComponent> transformMapper;
     private final ChunkComponent chunk;
     private final TransformComponent player;
     private final SettingsComponent settings;
     private final Engine engine;
+    private final PathfindingService pathfinding;
+    private final FlowField flowField;
+    private float metricsTimer = 0f;
+
+    // a removed tank's search would only waste the budget
+    private final EntityListener removedTanks = new EntityListener() {
+        @Override
+        public void entityAdded(Entity entity) {
+        }
+
+        @Override
+        public void entityRemoved(Entity entity) {
+            pathfinding.cancel(enemyMapper.get(entity).pathRequest);
+        }
+    };
 
     public EnemySystem(Engine engine, TransformComponent player, ChunkComponent chunk, SettingsComponent settings) {
         super(Family.all(EnemyComponent.class, TransformComponent.class).get());
@@ -31,6 +51,41 @@ public class EnemySystem extends IteratingSystem {
         this.engine = engine;
         this.chunk = chunk;
         this.settings = settings;
+        this.pathfinding = new PathfindingService(chunk.pathfindingGraph, new OctileDistance(chunk.pathfindingGraph));
+        this.flowField = new FlowField(chunk.pathfindingGraph);
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        // one search for every tank on the flow field, and only after the player entered another cell
+        flowField.update(chunk.pathfindingGraph.getCell(player.getPosition()));
+        // the searches of the tanks with their own path, results are picked up by the tanks below
+        pathfinding.update();
+        super.update(deltaTime);
+
+        metricsTimer += deltaTime;
+        if (settings.DEBUG && metricsTimer >= 1f) {
+            metricsTimer = 0f;
+            Gdx.app.log("EnemySystem", "path searches/s: " + pathfinding.getSearchesPerSecond()
+                + " queued: " + pathfinding.getQueueDepth()
+                + " wait ms: " + pathfinding.getAverageWaitMillis() + " max: " + pathfinding.getMaxWaitMillis());
+        }
+    }
+
+    @Override
+    public void addedToEngine(Engine engine) {
+        super.addedToEngine(engine);
+        engine.addEntityListener(getFamily(), removedTanks);
+    }
+
+    @Override
+    public void removedFromEngine(Engine engine) {
+        super.removedFromEngine(engine);
+        engine.removeEntityListener(removedTanks);
+    }
+
+    public PathfindingService getPathfinding() {
+        return pathfinding;
     }
 
     @Override
@@ -41,8 +96,7 @@ public class EnemySystem extends IteratingSystem {
         transform.velocity.setZero();
 
         // Check if enemy is in valid chunk and alive
-        Vector2 chunkPosition = chunk.getChunkPosition(transform.getPosition());
-        if (!chunk.mapChunks.containsKey(chunkPosition) || transform.health <= 0) {
+        if (!chunk.registry.isActiveAt(transform.getPosition().x, transform.getPosition().y) || transform.health <= 0) {
             transform.health = 0;
             return;
         }
@@ -60,14 +114,19 @@ public class EnemySystem extends IteratingSystem {
             return;
         }
 
-        // Update pathfinding
-        updatePathfinding(transform, enemyComponent, deltaTime);
+        if (enemyComponent.navigation == EnemyComponent.Navigation.FLOW_FIELD) {
+            followFlowField(transform, enemyComponent);
+            moveEnemy(transform, enemyComponent, deltaTime);
+        } else {
+            // Update pathfinding
+            updatePathfinding(transform, enemyComponent, deltaTime);
 
-        getNextPath(chunk, transform.getPosition(), enemyComponent);
+            getNextPath(chunk, transform.getPosition(), enemyComponent);
 
-        // Move enemy
-        if (enemyComponent.path.getCount() > 1 || enemyComponent.pathIndex < enemyComponent.path.getCount() - 1) {
-            moveEnemy(transform, enemyComponent, deltaTime);
+            // Move enemy
+            if (enemyComponent.path.getCount() > 1 || enemyComponent.pathIndex < enemyComponent.path.getCount() - 1) {
+                moveEnemy(transform, enemyComponent, deltaTime);
+            }
         }
 
         end(enemyComponent, transform, deltaTime);
@@ -81,70 +140,67 @@ public class EnemySystem extends IteratingSystem {
 
     private void getNextPath(ChunkComponent chunk, Vector2 Position, EnemyComponent enemyComponent) {
         if(Position.dst(enemyComponent.nextPathWorld) < itemSize*itemSize*itemSize && enemyComponent.pathIndex < enemyComponent.path.getCount() - 1) {
-            enemyComponent.nextPathWorld.set(chunk.GridToWorldCoordinates((enemyComponent.path.get(++enemyComponent.pathIndex).position)));
+            enemyComponent.nextPathWorld.set(chunk.GridToWorldCoordinates(enemyComponent.path.get(++enemyComponent.pathIndex)));
+        }
+    }
+
+    // aims at the centre of a cell a few steps down the flow field, or straight at the player when the field has no way
+    private void followFlowField(TransformComponent transform, EnemyComponent enemyComponent) {
+        int target = flowField.lookAhead(chunk.pathfindingGraph.getCell(transform.getPosition()), FLOW_LOOK_AHEAD);
+        if (target < 0) {
+            enemyComponent.nextPathWorld.set(player.getPosition());
+        } else {
+            enemyComponent.nextPathWorld.set(chunk.GridToWorldCoordinates(target)).add(itemSize / 2f, itemSize / 2f);
         }
     }
 
     private void updatePathfinding(TransformComponent transform, EnemyComponent enemyComponent, float deltaTime) {
-        // Only recalculate path if player has moved outside the lazy path rectangle or if we don't have a valid path yet
+        PathfindingService.Request request = enemyComponent.pathRequest;
+        if (request.collect()) {
+            if (request.pathFound) {
+                // the new path takes the place of the old one, which becomes the buffer of the next search
+                GraphPath<Integer> previous = enemyComponent.path;
+                enemyComponent.path = request.resultPath;
+                request.resultPath = previous;
+                enemyComponent.lazyPath.set(
+                    request.goal.x - TILE_SIZE,
+                    request.goal.y - TILE_SIZE,
+                    TILE_SIZE * 2,
+                    TILE_SIZE * 2
+                );
+                enemyComponent.pathIndex = 0;
+                enemyComponent.nextPathWorld.set(chunk.GridToWorldCoordinates(enemyComponent.path.get(enemyComponent.pathIndex)));
+            } else if (enemyComponent.path.getCount() == 0) {
+                directPath(transform, enemyComponent);
+            }
+        }
+
         enemyComponent.timeSinceLastPathfinding += deltaTime;
-        if (enemyComponent.timeSinceLastPathfinding < enemyComponent.pathfindingCooldown) {
+        if (enemyComponent.timeSinceLastPathfinding < enemyComponent.pathfindingCooldown || request.isPending()) {
             return;
         }
         enemyComponent.timeSinceLastPathfinding = 0f;
 
-        // Only recalculate path if player has moved outside the lazy path rectangle or if we don't have a valid path yet
-        if (!enemyComponent.lazyPath.contains(player.getPosition()) || enemyComponent.path.getCount() == 0) {
-            Vector2 startPos = chunk.worldToGridCoordinates(transform.getPosition());
-            Vector2 endPos = chunk.worldToGridCoordinates(player.getPosition());
-
-            GraphNode startNode = chunk.pathfindingGraph.getNodeAt(startPos);
-            GraphNode endNode = chunk.pathfindingGraph.getNodeAt(endPos);
-
-            // Handle null nodes by using previous path or creating direct path to player
-            if (startNode == null || endNode == null) {
-                if (enemyComponent.previousPath != null && enemyComponent.previousPath.getCount() > 0) {
-                    enemyComponent.path = enemyComponent.previousPath;
-                } else {
-                    // Create a simple direct path to the player if no previous path exists
-                    DefaultGraphPath<GraphNode> directPath = new DefaultGraphPath<>();
-                    GraphNode simpleStartNode = new GraphNode(startPos);
-                    GraphNode simpleEndNode = new GraphNode(endPos);
-                    directPath.add(simpleStartNode);
-                    directPath.add(simpleEndNode);
-                    enemyComponent.path = directPath;
-                }
-            } else {
-                // Store the current path as previous path before calculating new one
-                if (enemyComponent.path.getCount() > 0) {
-                    enemyComponent.previousPath = new DefaultGraphPath<>();
-                    for (GraphNode node : enemyComponent.path) {
-                        enemyComponent.previousPath.add(node);
-                    }
-                }
-
-                IndexedAStarPathFinder<GraphNode> pathFinder = new IndexedAStarPathFinder<>(chunk.pathfindingGraph);
-                enemyComponent.path.clear();
-                boolean pathFound = pathFinder.searchNodePath(startNode, endNode, new ManhattanDistance(), enemyComponent.path);
-
-                if (pathFound) {
-                    enemyComponent.lazyPath.set(
-                        player.getPosition().x - TILE_SIZE,
-                        player.getPosition().y - TILE_SIZE,
-                        TILE_SIZE * 2,
-                        TILE_SIZE * 2
-                    );
-                    enemyComponent.pathIndex = 0;
-                    enemyComponent.nextPathWorld.set(chunk.GridToWorldCoordinates((enemyComponent.path.get(enemyComponent.pathIndex).position)));
-                } else {
-                    if (enemyComponent.previousPath != null) {
-                        enemyComponent.path = enemyComponent.previousPath;
-                    }
-                }
-            }
+        // Only recalculate path if player has moved outside the lazy path rectangle or if we don't have a valid path yet,
+        // the tank keeps following its current path until the search is done
+        // or if the path only leads part of the way
+        if (!enemyComponent.lazyPath.contains(player.getPosition()) || enemyComponent.path.getCount() == 0 || request.partial) {
+            request.jumpPoint = enemyComponent.navigation == EnemyComponent.Navigation.JUMP_POINT;
+            pathfinding.request(request, transform.getPosition(), player.getPosition());
         }
+    }
 
-
+    // without any path the tank heads straight for the player's cell
+    private void directPath(TransformComponent transform, EnemyComponent enemyComponent) {
+        WorldGraph graph = chunk.pathfindingGraph;
+        int startCell = graph.getCell(transform.getPosition());
+        int endCell = graph.getCell(player.getPosition());
+        if (startCell >= 0 && endCell >= 0) {
+            enemyComponent.path.clear();
+            enemyComponent.path.add(graph.getNode(startCell));
+            enemyComponent.path.add(graph.getNode(endCell));
+            enemyComponent.pathIndex = 0;
+        }
     }
 
     private void updateTurretRotation(TransformComponent transform, EnemyComponent enemyComponent) {
@@ -209,13 +265,6 @@ public class EnemySystem extends IteratingSystem {
             transform.velocity.scl(4);
     }
 
-    private static class ManhattanDistance implements Heuristic<GraphNode> {
-        @Override
-        public float estimate(GraphNode node, GraphNode endNode) {
-            return Math.abs(node.position.x - endNode.position.x) +
-                Math.abs(node.position.y - endNode.position.y);
-        }
-    }
 
     private void debug(Vector2 start, Vector2 end){
         chunk.shapeRenderer.begin();
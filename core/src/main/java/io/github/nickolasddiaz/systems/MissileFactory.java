@@ -2,7 +2,6 @@ package io.github.nickolasddiaz.systems;
 
 import com.badlogic.ashley.core.Engine;
 import com.badlogic.ashley.core.Entity;
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.Vector2;
@@ -24,12 +23,12 @@ public class MissileFactory {
     private final Sound missileSound;
 
 
-    public MissileFactory(Engine engine, Skin skin, ChunkComponent chunk, SettingsComponent settings) {
+    public MissileFactory(Engine engine, Skin skin, ChunkComponent chunk, SettingsComponent settings, Sound missileSound) {
         this.engine = engine;
         this.skin = skin;
         this.chunk = chunk;
         this.settings = settings;
-        missileSound = Gdx.audio.newSound(Gdx.files.internal("sounds/shoot_rpg.mp3"));
+        this.missileSound = missileSound;
 
     }
 
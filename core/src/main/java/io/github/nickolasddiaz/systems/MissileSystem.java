@@ -29,7 +29,7 @@ public class MissileSystem extends IteratingSystem {
         MissileComponent missile = missileMapper.get(entity);
 
         // Check if in a valid chunk
-        if (!chunk.mapChunks.containsKey(chunk.getChunkPosition(transform.getPosition())) || transform.body == null) {
+        if (!chunk.registry.isActiveAt(transform.getPosition().x, transform.getPosition().y) || transform.body == null) {
             transform.health = 0;
             return;
         }
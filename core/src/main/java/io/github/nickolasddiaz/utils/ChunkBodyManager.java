@@ -0,0 +1,155 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.objects.PolygonMapObject;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.*;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import static io.github.nickolasddiaz.utils.CollisionCategory.*;
+import static io.github.nickolasddiaz.utils.MapGenerator.chunkSize;
+
+// The only owner of the static Box2D colliders built from chunk objects (roads, decorations, structures and ocean).
+// Each active chunk has a single static body at its origin and every object becomes one fixture on it,
+// the category and sensor flag are per fixture so one body serves them all. A rectangle fixture keeps its world Rectangle as user data.
+// The body is created when a chunk becomes active and destroyed in one call when it is deactivated,
+// a chunk that is already active is left alone so crossing a border does not rebuild its neighbours.
+public class ChunkBodyManager {
+    private final World world;
+    private final CollisionCategory category;
+    private final LongMap<Body> chunkBodies = new LongMap<>(); // keyed by ChunkRegistry.key
+    private final Array<Fixture> destroyedFixtures = new Array<>(); // removed after the world step
+    private int fixtureCount = 0;
+
+    public ChunkBodyManager(World world, CollisionCategory category) {
+        this.world = world;
+        this.category = category;
+    }
+
+    // adds the fixtures of a newly activated chunk from the given object index on until the deadline passes,
+    // at least one per call, returns the index to resume from, objects.size once the chunk is complete
+    public int activate(long chunkKey, Array<MapObject> objects, int from, long deadlineNanos) {
+        Body body = chunkBodies.get(chunkKey);
+        if (body == null) {
+            BodyDef bodyDef = new BodyDef();
+            bodyDef.type = BodyDef.BodyType.StaticBody;
+            bodyDef.position.set(ChunkRegistry.keyX(chunkKey) * chunkSize, ChunkRegistry.keyY(chunkKey) * chunkSize);
+            body = world.createBody(bodyDef);
+            chunkBodies.put(chunkKey, body);
+        }
+
+        int i = from;
+        while (i < objects.size) {
+            MapObject obj = objects.get(i++);
+            if (obj.getName() == null) continue;
+            if (obj instanceof RectangleMapObject) {
+                addRectangle(body, ((RectangleMapObject) obj).getRectangle(), category.getFilterBit(obj.getName()));
+                fixtureCount++;
+            } else if (obj instanceof PolygonMapObject) {
+                addChain(body, ((PolygonMapObject) obj).getPolygon(), category.getFilterBit(obj.getName()));
+                fixtureCount++;
+            }
+            if (TimeUtils.nanoTime() >= deadlineNanos) break;
+        }
+        return i;
+    }
+
+    // snapshot of the OBJECTS layer, destroyed structures remove themselves from the layer while a chunk is still activating
+    public static Array<MapObject> objectsOf(TiledMap chunkMap) {
+        MapObjects objects = chunkMap.getLayers().get("OBJECTS").getObjects();
+        return objects.getByType(MapObject.class, new Array<>(objects.getCount()));
+    }
+
+    // destroys the body of a deactivated chunk and with it all of its fixtures
+    public void deactivate(long chunkKey) {
+        Body body = chunkBodies.remove(chunkKey);
+        if (body == null) return;
+        for (int i = destroyedFixtures.size - 1; i >= 0; i--) {
+            if (destroyedFixtures.get(i).getBody() == body) destroyedFixtures.removeIndex(i);
+        }
+        fixtureCount -= body.getFixtureList().size;
+        world.destroyBody(body);
+    }
+
+    // queues a chunk fixture (a destroyed structure) for removal, contacts are reported while the world is locked
+    // returns false when it is already queued
+    public boolean destroyFixtureLater(Fixture fixture) {
+        if (destroyedFixtures.contains(fixture, true)) return false;
+        destroyedFixtures.add(fixture);
+        return true;
+    }
+
+    // call after World.step
+    public void destroyQueuedFixtures() {
+        for (Fixture fixture : destroyedFixtures) {
+            fixture.getBody().destroyFixture(fixture);
+        }
+        fixtureCount -= destroyedFixtures.size;
+        destroyedFixtures.clear();
+    }
+
+    public boolean isActive(long chunkKey) {
+        return chunkBodies.containsKey(chunkKey);
+    }
+
+    // live fixtures of one chunk, 0 when it is not active
+    public int getFixtureCount(long chunkKey) {
+        Body body = chunkBodies.get(chunkKey);
+        return body == null ? 0 : body.getFixtureList().size;
+    }
+
+    public int getFixtureCount() {
+        return fixtureCount;
+    }
+
+    public int getChunkCount() {
+        return chunkBodies.size;
+    }
+
+    // where a fixture is in the world, the centre of its rectangle for chunk colliders and its body's position otherwise
+    public static Vector2 positionOf(Fixture fixture, Vector2 out) {
+        if (fixture.getUserData() instanceof Rectangle) return ((Rectangle) fixture.getUserData()).getCenter(out);
+        return out.set(fixture.getBody().getPosition());
+    }
+
+    private void addRectangle(Body body, Rectangle rect, short category) {
+        PolygonShape shape = new PolygonShape();
+        Vector2 origin = body.getPosition();
+        shape.setAsBox(rect.width/2, rect.height/2, new Vector2(rect.x + rect.width/2 - origin.x, rect.y + rect.height/2 - origin.y), 0);
+
+        Fixture fixture = body.createFixture(fixtureDef(shape, category));
+        fixture.setUserData(rect);
+        shape.dispose();
+    }
+
+    private void addChain(Body body, Polygon polygon, short category) {
+        float[] vertices = polygon.getTransformedVertices().clone();
+        Vector2 origin = body.getPosition();
+        for (int v = 0; v < vertices.length; v += 2) {
+            vertices[v] -= origin.x;
+            vertices[v + 1] -= origin.y;
+        }
+        ChainShape shape = new ChainShape();
+        shape.createLoop(vertices);
+
+        body.createFixture(fixtureDef(shape, category));
+        shape.dispose();
+    }
+
+    private FixtureDef fixtureDef(Shape shape, short category) {
+        FixtureDef fixtureDef = new FixtureDef();
+        fixtureDef.shape = shape;
+        fixtureDef.density = 1.0f;
+        fixtureDef.filter.categoryBits = category;
+        fixtureDef.filter.maskBits = categoryToFilterBits(category);
+        fixtureDef.isSensor = (category == DECORATION || category == HORIZONTAL_ROAD || category == VERTICAL_ROAD);
+        return fixtureDef;
+    }
+}
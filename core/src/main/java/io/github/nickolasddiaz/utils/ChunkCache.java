@@ -0,0 +1,123 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.utils.LongMap;
+
+import static io.github.nickolasddiaz.utils.MapGenerator.MAP_SIZE;
+
+// Least recently used cache of chunks that left the load radius, so turning around does not regenerate them.
+// Keeps the TiledMap (tile layers and object layer, destroyed structures stay destroyed) and the non-walkable grid,
+// the chunks stay in the registry as EVICTED until the cache drops them.
+// Entries are keyed by the primitive chunk key like the registry and linked from least to most recently put,
+// so lookups do not box a Long.
+public class ChunkCache {
+    private static final int CELL_REFERENCE_BYTES = 8;
+    private static final int MAP_OBJECT_BYTES = 96; // RectangleMapObject with its Rectangle and properties, rough
+
+    private final ChunkRegistry registry;
+    private final int maxChunks; // 0 for no limit
+    private final long maxBytes; // 0 for no limit
+    private final LongMap<Entry> entries = new LongMap<>();
+    private Entry oldest; // the next to be dropped
+    private Entry newest;
+    private long bytes = 0;
+
+    private int hits = 0;
+    private int misses = 0;
+    private int evictions = 0;
+
+    public ChunkCache(ChunkRegistry registry, int maxChunks, long maxBytes) {
+        this.registry = registry;
+        this.maxChunks = maxChunks;
+        this.maxBytes = maxBytes;
+    }
+
+    public void put(ChunkRegistry.Chunk chunk) {
+        registry.evict(chunk);
+        Entry entry = new Entry(chunk);
+        Entry previous = entries.put(chunk.key, entry);
+        if (previous != null) {
+            unlink(previous);
+            bytes -= previous.bytes;
+        }
+        link(entry);
+        bytes += entry.bytes;
+        trim();
+    }
+
+    // removes and returns the chunk, the caller activates it again
+    public ChunkRegistry.Chunk take(int x, int y) {
+        Entry entry = entries.remove(ChunkRegistry.key(x, y));
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        unlink(entry);
+        bytes -= entry.bytes;
+        return entry.chunk;
+    }
+
+    private void trim() {
+        while (oldest != null && isOverCapacity()) {
+            Entry entry = oldest;
+            unlink(entry);
+            entries.remove(entry.chunk.key);
+            bytes -= entry.bytes;
+            registry.remove(entry.chunk.key);
+            evictions++;
+        }
+    }
+
+    // appends as the most recent entry
+    private void link(Entry entry) {
+        entry.older = newest;
+        entry.newer = null;
+        if (newest != null) newest.newer = entry; else oldest = entry;
+        newest = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.older != null) entry.older.newer = entry.newer; else oldest = entry.newer;
+        if (entry.newer != null) entry.newer.older = entry.older; else newest = entry.older;
+        entry.older = null;
+        entry.newer = null;
+    }
+
+    private boolean isOverCapacity() {
+        return (maxChunks > 0 && entries.size > maxChunks) || (maxBytes > 0 && bytes > maxBytes);
+    }
+
+    public int size() { return entries.size; }
+    public long getBytes() { return bytes; }
+    public int getHits() { return hits; }
+    public int getMisses() { return misses; }
+    public int getEvictions() { return evictions; }
+
+    private static class Entry {
+        final ChunkRegistry.Chunk chunk;
+        final long bytes;
+        Entry older;
+        Entry newer;
+
+        Entry(ChunkRegistry.Chunk chunk) {
+            this.chunk = chunk;
+            this.bytes = estimateBytes(chunk.map);
+        }
+    }
+
+    // the Cell instances are shared between tiles, so count the references and the objects
+    private static long estimateBytes(TiledMap map) {
+        long total = (long) MAP_SIZE * MAP_SIZE; // non-walkable grid
+        for (MapLayer layer : map.getLayers()) {
+            if (layer instanceof TiledMapTileLayer) {
+                TiledMapTileLayer tileLayer = (TiledMapTileLayer) layer;
+                total += (long) tileLayer.getWidth() * tileLayer.getHeight() * CELL_REFERENCE_BYTES;
+            }
+            total += (long) layer.getObjects().getCount() * MAP_OBJECT_BYTES;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.objects.PolygonMapObject;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+
+import java.util.Arrays;
+
+// Plain result of generating one chunk, everything the GL thread needs to build the TiledMap and Box2D bodies.
+// Built on a worker thread so it must not touch textures or the Box2D world.
+public class ChunkData {
+    public final int chunkX;
+    public final int chunkY;
+    public final int[][] biomeMap;
+    public final short[] terrainMap; // MapGenerator.tileIndex(x, y), TerrainGenerator.EMPTY where a tile has no terrain
+    public final boolean[][] notWalkableGrid;
+    public final MapObjects objects; // roads, decorations, structures and ocean polygons in world units
+
+    public ChunkData(int chunkX, int chunkY, int[][] biomeMap, short[] terrainMap, boolean[][] notWalkableGrid, MapObjects objects) {
+        this.chunkX = chunkX;
+        this.chunkY = chunkY;
+        this.biomeMap = biomeMap;
+        this.terrainMap = terrainMap;
+        this.notWalkableGrid = notWalkableGrid;
+        this.objects = objects;
+    }
+
+    // true when other holds the same tiles, walkability and objects in the same order, used to check generation is deterministic
+    public boolean sameContent(ChunkData other) {
+        if (chunkX != other.chunkX || chunkY != other.chunkY) return false;
+        if (!Arrays.deepEquals(biomeMap, other.biomeMap) || !Arrays.equals(terrainMap, other.terrainMap)) return false;
+        if (!Arrays.deepEquals(notWalkableGrid, other.notWalkableGrid)) return false;
+        if (objects.getCount() != other.objects.getCount()) return false;
+        for (int i = 0; i < objects.getCount(); i++) {
+            if (!sameObject(objects.get(i), other.objects.get(i))) return false;
+        }
+        return true;
+    }
+
+    private static boolean sameObject(MapObject a, MapObject b) {
+        if (a.getClass() != b.getClass() || !a.getName().equals(b.getName())) return false;
+        if (a instanceof RectangleMapObject) {
+            return ((RectangleMapObject) a).getRectangle().equals(((RectangleMapObject) b).getRectangle());
+        }
+        if (a instanceof PolygonMapObject) {
+            return Arrays.equals(((PolygonMapObject) a).getPolygon().getTransformedVertices(),
+                ((PolygonMapObject) b).getPolygon().getTransformedVertices());
+        }
+        return true;
+    }
+}
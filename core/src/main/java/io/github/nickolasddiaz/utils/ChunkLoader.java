@@ -0,0 +1,99 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.LongArray;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+
+// Runs MapGenerator.generateChunk off the render thread and hands back finished ChunkData,
+// the TiledMap and Box2D bodies are still created by ChunkSystem on the GL thread.
+// The web backend has no threads, there requests are queued and collectFinished generates one chunk per call,
+// so crossing into a new row of chunks is spread over as many frames as there are chunks.
+// With a ChunkStore the workers read chunks generated before from disk and store the ones they generate.
+public class ChunkLoader implements Disposable {
+    // generateChunk is a pure function of the seed and the chunk, so the chunks of the first load are generated side by side
+    static final int WORKERS = 4;
+
+    private final MapGenerator mapGenerator;
+    private final ChunkStore store; // null when there is no persistent store
+    private final AsyncExecutor executor; // null when generating inline
+    private final LongMap<AsyncResult<ChunkData>> pending = new LongMap<>();
+    private final LongArray queuedInline = new LongArray(); // chunk keys, oldest request first
+
+    public ChunkLoader(MapGenerator mapGenerator, ChunkStore store) {
+        this.mapGenerator = mapGenerator;
+        this.store = store;
+        executor = Gdx.app.getType() == Application.ApplicationType.WebGL ? null : new AsyncExecutor(WORKERS, "ChunkLoader");
+    }
+
+    public void request(int chunkX, int chunkY) {
+        long key = ChunkRegistry.key(chunkX, chunkY);
+        if (pending.containsKey(key)) return;
+
+        if (executor == null) {
+            if (!queuedInline.contains(key)) queuedInline.add(key);
+            return;
+        }
+        pending.put(key, executor.submit(() -> loadOrGenerate(chunkX, chunkY)));
+    }
+
+    private ChunkData loadOrGenerate(int chunkX, int chunkY) {
+        if (store == null) return mapGenerator.generateChunk(chunkX, chunkY);
+
+        // the store is used by one worker at a time, generating happens outside the lock
+        ChunkData data;
+        synchronized (store) {
+            data = store.load(mapGenerator.getSeed(), chunkX, chunkY);
+        }
+        if (data == null) {
+            data = mapGenerator.generateChunk(chunkX, chunkY);
+            synchronized (store) {
+                store.save(mapGenerator.getSeed(), data);
+            }
+        }
+        return data;
+    }
+
+    private ChunkData generateInline(long key) {
+        return mapGenerator.generateChunk(ChunkRegistry.keyX(key), ChunkRegistry.keyY(key));
+    }
+
+    public boolean isPending(int chunkX, int chunkY) {
+        long key = ChunkRegistry.key(chunkX, chunkY);
+        return pending.containsKey(key) || queuedInline.contains(key);
+    }
+
+    // moves every chunk the workers have finished into out without blocking, generates one queued chunk when inline
+    public void collectFinished(Array<ChunkData> out) {
+        if (queuedInline.notEmpty()) out.add(generateInline(queuedInline.removeIndex(0)));
+
+        LongMap.Values<AsyncResult<ChunkData>> iterator = pending.values();
+        while (iterator.hasNext()) {
+            AsyncResult<ChunkData> result = iterator.next();
+            if (result.isDone()) {
+                out.add(result.get());
+                iterator.remove();
+            }
+        }
+    }
+
+    // blocks until every requested chunk is generated, only used for the first load
+    public void finishAll(Array<ChunkData> out) {
+        for (int i = 0; i < queuedInline.size; i++) out.add(generateInline(queuedInline.get(i)));
+        queuedInline.clear();
+
+        for (AsyncResult<ChunkData> result : pending.values()) {
+            out.add(result.get());
+        }
+        pending.clear();
+    }
+
+    @Override
+    public void dispose() {
+        if (executor != null) executor.dispose(); // waits for the workers, the store is owned by the game
+    }
+}
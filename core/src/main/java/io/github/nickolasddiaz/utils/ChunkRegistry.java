@@ -0,0 +1,141 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+
+import static io.github.nickolasddiaz.utils.MapGenerator.chunkSize;
+
+// Every chunk the game knows about, keyed by its packed chunk coordinate.
+// The queries used by the entity systems every frame (isActive, chunkAt) do not allocate.
+public class ChunkRegistry {
+    public enum State {
+        GENERATING, // requested from the ChunkLoader
+        READY,      // generated, no TiledMap, Box2D bodies or cars yet
+        ACTIVE,     // inside the load radius, bodies and cars exist
+        EVICTED     // left the load radius, kept by the ChunkCache
+    }
+
+    public static class Chunk {
+        public final int x;
+        public final int y;
+        public final long key;
+        public State state;
+        public ChunkData data;              // set while READY
+        public TiledMap map;                // set while ACTIVE or EVICTED
+        public boolean[][] notWalkableGrid; // set while ACTIVE or EVICTED
+        public short[] terrainMap;          // set while ACTIVE or EVICTED, roads and bushes for the nav grid
+
+        Chunk(int x, int y) {
+            this.x = x;
+            this.y = y;
+            this.key = key(x, y);
+        }
+    }
+
+    private final LongMap<Chunk> chunks = new LongMap<>();
+    private final Array<Chunk> active = new Array<>(false, 16);
+
+    public static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    public static int keyX(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int keyY(long key) {
+        return (int) key;
+    }
+
+    // world units to chunk coordinate
+    public static int toChunk(float world) {
+        return (int) Math.floor(world / chunkSize);
+    }
+
+    public Chunk get(int x, int y) {
+        return chunks.get(key(x, y));
+    }
+
+    public State getState(int x, int y) {
+        Chunk chunk = chunks.get(key(x, y));
+        return chunk == null ? null : chunk.state;
+    }
+
+    public boolean isActive(int x, int y) {
+        Chunk chunk = chunks.get(key(x, y));
+        return chunk != null && chunk.state == State.ACTIVE;
+    }
+
+    // the active chunk containing the world position or null
+    public Chunk chunkAt(float worldX, float worldY) {
+        Chunk chunk = chunks.get(key(toChunk(worldX), toChunk(worldY)));
+        return chunk != null && chunk.state == State.ACTIVE ? chunk : null;
+    }
+
+    public boolean isActiveAt(float worldX, float worldY) {
+        return chunkAt(worldX, worldY) != null;
+    }
+
+    // active chunks in no particular order, do not modify
+    public Array<Chunk> getActive() {
+        return active;
+    }
+
+    public LongMap.Values<Chunk> all() {
+        return chunks.values();
+    }
+
+    public Chunk markGenerating(int x, int y) {
+        Chunk chunk = getOrCreate(x, y);
+        setState(chunk, State.GENERATING);
+        return chunk;
+    }
+
+    public Chunk markReady(ChunkData data) {
+        Chunk chunk = getOrCreate(data.chunkX, data.chunkY);
+        chunk.data = data;
+        setState(chunk, State.READY);
+        return chunk;
+    }
+
+    public Chunk activate(int x, int y, TiledMap map, boolean[][] notWalkableGrid, short[] terrainMap) {
+        Chunk chunk = getOrCreate(x, y);
+        chunk.data = null;
+        chunk.map = map;
+        chunk.notWalkableGrid = notWalkableGrid;
+        chunk.terrainMap = terrainMap;
+        setState(chunk, State.ACTIVE);
+        return chunk;
+    }
+
+    public void evict(Chunk chunk) {
+        setState(chunk, State.EVICTED);
+    }
+
+    public void remove(long key) {
+        Chunk chunk = chunks.remove(key);
+        if (chunk != null && chunk.state == State.ACTIVE) {
+            active.removeValue(chunk, true);
+        }
+    }
+
+    private Chunk getOrCreate(int x, int y) {
+        long key = key(x, y);
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = new Chunk(x, y);
+            chunks.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    private void setState(Chunk chunk, State state) {
+        if (chunk.state == State.ACTIVE && state != State.ACTIVE) {
+            active.removeValue(chunk, true);
+        } else if (chunk.state != State.ACTIVE && state == State.ACTIVE) {
+            active.add(chunk);
+        }
+        chunk.state = state;
+    }
+}
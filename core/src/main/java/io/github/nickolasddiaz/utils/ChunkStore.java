@@ -0,0 +1,13 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.utils.Disposable;
+
+// Persistent storage of generated chunks so a chunk is only generated once per world.
+// ChunkLoader looks here before it falls back to MapGenerator.generateChunk, from its worker threads but never two at once.
+// The desktop backend provides one, the other backends run without a store.
+public interface ChunkStore extends Disposable {
+    // the stored chunk of the world with this seed, null when it was never stored or the store is outdated
+    ChunkData load(int seed, int chunkX, int chunkY);
+
+    void save(int seed, ChunkData data);
+}
@@ -3,8 +3,9 @@ package io.github.nickolasddiaz.utils;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Fixture;
 import io.github.nickolasddiaz.components.ChunkComponent;
+import io.github.nickolasddiaz.components.EnemyComponent;
 import io.github.nickolasddiaz.systems.BulletFactory;
 import io.github.nickolasddiaz.systems.EnemyFactory;
 import io.github.nickolasddiaz.systems.LandMineFactory;
@@ -18,6 +19,9 @@ import static io.github.nickolasddiaz.utils.MapGenerator.TILE_PER_METER;
 import static io.github.nickolasddiaz.utils.MapGenerator.itemSize;
 
 public class EntityStats{
+    public static final float ROAD_SPEED_BONUS = 0.4f;
+    public static final float BUSH_SPEED_PENALTY = 0.3f;
+
     public float health = 4;
     public int reduceDamage = 0;
     public int regeneration = 1;
@@ -43,6 +47,8 @@ public class EntityStats{
 
     public float spinSpeed = speed / 2f * TILE_PER_METER;
     public boolean team; // true for ally, false for enemy
+    // how a tank of this type finds its way, the few allies search their own paths and enemies share the flow field
+    public EnemyComponent.Navigation navigation;
     private final BulletFactory bulletFactory;
     private final MissileFactory missileFactory;
     private final LandMineFactory landMineFactory;
@@ -122,6 +128,8 @@ public class EntityStats{
                         allySpawnerRate = Math.max(3.0f, 10.0f - (level * 0.3f)); // Improve ally spawn rate with level
                         break;
                 }
+                // special enemies are rare enough to search their own path, A* takes the road and bush weights into account
+                if (!team) navigation = EnemyComponent.Navigation.PATH;
             }
         }
     }
@@ -131,6 +139,7 @@ public class EntityStats{
                        EnemyFactory enemyFactory, ChunkComponent chunk) {
         this.random = random;
         this.team = team;
+        this.navigation = team ? EnemyComponent.Navigation.JUMP_POINT : EnemyComponent.Navigation.FLOW_FIELD;
         this.bulletFactory = bulletFactory;
         this.missileFactory = missileFactory;
         this.landMineFactory = landMineFactory;
@@ -157,7 +166,7 @@ public class EntityStats{
         }
 
         // Handle speed boost
-        float speedMultiplier = 1f + (onRoad >= 1 ? 0.4f : 0) + (onBush >= 1 ? -0.3f : 0);
+        float speedMultiplier = speedMultiplier(onRoad >= 1, onBush >= 1);
 
         // Normalize the velocity (keep direction, length 1) and then apply the base speed * multiplier
         if (velocity.len2() > 0) { // Check if moving to avoid divide by zero
@@ -211,7 +220,7 @@ public class EntityStats{
                 spawnLength
             );
 
-            Body[] bodies = chunk.getBodiesInRect(spawnArea, (short) (PLAYER | STRUCTURE | OCEAN | ENEMY | ALLY));
+            Fixture[] fixtures = chunk.getFixturesInRect(spawnArea, (short) (PLAYER | STRUCTURE | OCEAN | ENEMY | ALLY));
 
             Vector2[] spawnPositions = new Vector2[]{
                 new Vector2(spawnArea.x, spawnArea.y),
@@ -221,7 +230,7 @@ public class EntityStats{
             };
 
             for (Vector2 pos : spawnPositions) {
-                if (!isPositionOccupied(pos, bodies)) {
+                if (!isPositionOccupied(pos, fixtures)) {
                     enemyFactory.createTank(pos, team, this);
                     break;
                 }
@@ -229,15 +238,21 @@ public class EntityStats{
         }
     }
 
-    private boolean isPositionOccupied(Vector2 position, Body[] bodies) {
-        for (Body body : bodies) {
-            if (body.getPosition().dst(position) < itemSize) {
+    private boolean isPositionOccupied(Vector2 position, Fixture[] fixtures) {
+        Vector2 occupied = new Vector2();
+        for (Fixture fixture : fixtures) {
+            if (ChunkBodyManager.positionOf(fixture, occupied).dst(position) < itemSize) {
                 return true;
             }
         }
         return false;
     }
 
+    // speed on roads and in bushes, also how WorldGraph weighs those cells
+    public static float speedMultiplier(boolean onRoad, boolean onBush) {
+        return 1f + (onRoad ? ROAD_SPEED_BONUS : 0) - (onBush ? BUSH_SPEED_PENALTY : 0);
+    }
+
     public int calculateDamage() {
         float chance = random.nextFloat();
         float multiplier = (chance < criticalChance) ? criticalDamageMultiplier : 1f;
@@ -108,6 +108,14 @@ public class FastNoiseLite
         BasicGrid
     };
 
+    /// <summary>
+    /// Maps a CellValue noise value to a category, see fillCellValueRegion
+    /// </summary>
+    public interface CellValueClassifier
+    {
+        int classify(float cellValue);
+    }
+
     private enum TransformType3D
     {
         None,
@@ -402,6 +410,60 @@ public class FastNoiseLite
     }
 
 
+    /// <summary>
+    /// 2D noise for every integer position of a width x height region starting at x0, y0
+    /// </summary>
+    /// <remarks>
+    /// out[x * height + y] holds the same value GetNoise(x0 + x, y0 + y) returns.
+    /// The settings are looked at once for the whole region, and cellular noise without fractals
+    /// reuses the 3x3 feature points around a cell for every sample that rounds to it.
+    /// </remarks>
+    public void fillRegion(float[] out, int x0, int y0, int width, int height)
+    {
+        if (out.length < width * height) throw new IllegalArgumentException("out holds " + out.length + " values, region needs " + width * height);
+
+        if (mNoiseType == NoiseType.Cellular && mFractalType == FractalType.None)
+        {
+            FillCellular(out, x0, y0, width, height);
+            return;
+        }
+
+        for (int x = 0; x < width; x++)
+        {
+            for (int y = 0; y < height; y++)
+            {
+                out[x * height + y] = GetNoise(x0 + x, y0 + y);
+            }
+        }
+    }
+
+    /// <summary>
+    /// Category of every integer position of a width x height region, out[x * height + y] = classifier.classify(GetNoise(x0 + x, y0 + y))
+    /// </summary>
+    /// <remarks>
+    /// Cellular noise returning CellValue is constant inside each cell, so whole blocks whose
+    /// nearest feature points all fall into one category are filled at once and
+    /// noise is only evaluated per position along the borders between categories.
+    /// Other settings classify the result of fillRegion.
+    /// </remarks>
+    public void fillCellValueRegion(int[] out, int x0, int y0, int width, int height, CellValueClassifier classifier)
+    {
+        if (out.length < width * height) throw new IllegalArgumentException("out holds " + out.length + " values, region needs " + width * height);
+
+        if (mNoiseType != NoiseType.Cellular || mFractalType != FractalType.None || mCellularReturnType != CellularReturnType.CellValue)
+        {
+            float[] values = new float[width * height];
+            fillRegion(values, x0, y0, width, height);
+            for (int i = 0; i < width * height; i++)
+            {
+                out[i] = classifier.classify(values[i]);
+            }
+            return;
+        }
+
+        new CellValueRaster(this, out, x0, y0, width, height, classifier).Fill();
+    }
+
     /// <summary>
     /// 2D warps the input position using current domain warp settings
     /// </summary>
@@ -1526,6 +1588,143 @@ public class FastNoiseLite
                 break;
         }
 
+        return CellularResult(distance0, distance1, closestHash);
+    }
+
+    // Same search as SingleCellular(seed, x, y) run over a region. The hash and jittered offset of the 9 feature
+    // points only depend on the rounded cell, so they are computed again only when the rounded cell changes,
+    // and the x offsets only change with the column. CellValue only needs the closest point, so the second
+    // distance is not tracked for it. The arithmetic is kept in the same order as SingleCellular so the
+    // results are bit-identical.
+    private void FillCellular(float[] out, int x0, int y0, int width, int height)
+    {
+        int seed = mSeed;
+        float cellularJitter = 0.43701595f * mCellularJitterModifier;
+        boolean closestOnly = mCellularReturnType == CellularReturnType.CellValue;
+        CellularDistanceFunction distanceFunction = mCellularDistanceFunction;
+        int[] featureHash = new int[9];
+        int[] featureX = new int[9];
+        int[] featureY = new int[9];
+        float[] jitterX = new float[9];
+        float[] jitterY = new float[9];
+        float[] vecXs = new float[9];
+        float[] distances = new float[9];
+        int cachedXr = 0;
+        int cachedYr = 0;
+        boolean cached = false;
+
+        for (int column = 0; column < width; column++)
+        {
+            /*FNLfloat*/ float x = (x0 + column) * mFrequency;
+            int xr = FastRound(x);
+            boolean newColumn = true;
+
+            for (int row = 0; row < height; row++)
+            {
+                /*FNLfloat*/ float y = (y0 + row) * mFrequency;
+                int yr = FastRound(y);
+
+                if (!cached || xr != cachedXr || yr != cachedYr)
+                {
+                    int xPrimed = (xr - 1) * PrimeX;
+                    int i = 0;
+                    for (int xi = xr - 1; xi <= xr + 1; xi++)
+                    {
+                        int yPrimed = (yr - 1) * PrimeY;
+                        for (int yi = yr - 1; yi <= yr + 1; yi++)
+                        {
+                            int hash = Hash(seed, xPrimed, yPrimed);
+                            int idx = hash & (255 << 1);
+                            featureHash[i] = hash;
+                            featureX[i] = xi;
+                            featureY[i] = yi;
+                            jitterX[i] = RandVecs2D[idx] * cellularJitter;
+                            jitterY[i] = RandVecs2D[idx | 1] * cellularJitter;
+                            i++;
+                            yPrimed += PrimeY;
+                        }
+                        xPrimed += PrimeX;
+                    }
+                    cachedXr = xr;
+                    cachedYr = yr;
+                    cached = true;
+                    newColumn = true;
+                }
+                if (newColumn)
+                {
+                    for (int i = 0; i < 9; i++)
+                    {
+                        vecXs[i] = featureX[i] - x + jitterX[i];
+                    }
+                    newColumn = false;
+                }
+
+                switch (distanceFunction)
+                {
+                    default:
+                    case Euclidean:
+                    case EuclideanSq:
+                        for (int i = 0; i < 9; i++)
+                        {
+                            float vecX = vecXs[i];
+                            float vecY = featureY[i] - y + jitterY[i];
+                            distances[i] = vecX * vecX + vecY * vecY;
+                        }
+                        break;
+                    case Manhattan:
+                        for (int i = 0; i < 9; i++)
+                        {
+                            float vecX = vecXs[i];
+                            float vecY = featureY[i] - y + jitterY[i];
+                            distances[i] = FastAbs(vecX) + FastAbs(vecY);
+                        }
+                        break;
+                    case Hybrid:
+                        for (int i = 0; i < 9; i++)
+                        {
+                            float vecX = vecXs[i];
+                            float vecY = featureY[i] - y + jitterY[i];
+                            distances[i] = (FastAbs(vecX) + FastAbs(vecY)) + (vecX * vecX + vecY * vecY);
+                        }
+                        break;
+                }
+
+                float distance0 = Float.MAX_VALUE;
+                float distance1 = Float.MAX_VALUE;
+                int closestHash = 0;
+
+                if (closestOnly)
+                {
+                    for (int i = 0; i < 9; i++)
+                    {
+                        if (distances[i] < distance0)
+                        {
+                            distance0 = distances[i];
+                            closestHash = featureHash[i];
+                        }
+                    }
+                }
+                else
+                {
+                    for (int i = 0; i < 9; i++)
+                    {
+                        float newDistance = distances[i];
+                        distance1 = FastMax(FastMin(distance1, newDistance), distance0);
+                        if (newDistance < distance0)
+                        {
+                            distance0 = newDistance;
+                            closestHash = featureHash[i];
+                        }
+                    }
+                }
+
+                out[column * height + row] = CellularResult(distance0, distance1, closestHash);
+            }
+        }
+    }
+
+    private float CellularResult(float distance0, float distance1, int closestHash)
+    {
         if (mCellularDistanceFunction == CellularDistanceFunction.Euclidean && mCellularReturnType != CellularReturnType.CellValue)
         {
             distance0 = FastSqrt(distance0);
@@ -1557,6 +1756,168 @@ public class FastNoiseLite
         }
     }
 
+    // Block rasterizer behind fillCellValueRegion.
+    // The region is first cut where FastRound of the sample position changes, inside each piece every sample searches
+    // the same 9 feature points. For a block of samples the smallest and largest distance to every feature point is
+    // bounded, a point whose smallest distance is above the best largest distance can not be the nearest anywhere in it.
+    // If the remaining points share a category the block is filled, otherwise it is halved down to single samples
+    // which run the normal SingleCellular search so borders come out exactly as GetNoise.
+    private static final class CellValueRaster
+    {
+        // float rounding of the distance is around 1e-6 for the offsets the 3x3 search sees, this margin covers it
+        private static final double MARGIN = 1e-4;
+
+        private final FastNoiseLite noise;
+        private final int[] out;
+        private final int height;
+        private final CellValueClassifier classifier;
+        private final float[] xs; // sample positions after the frequency scale
+        private final float[] ys;
+        private final double[] pointX = new double[9]; // feature points of the current piece
+        private final double[] pointY = new double[9];
+        private final int[] pointCategory = new int[9];
+        private final double[] minDistance = new double[9];
+        private final double[] maxDistance = new double[9];
+
+        CellValueRaster(FastNoiseLite noise, int[] out, int x0, int y0, int width, int height, CellValueClassifier classifier)
+        {
+            this.noise = noise;
+            this.out = out;
+            this.height = height;
+            this.classifier = classifier;
+            xs = new float[width];
+            ys = new float[height];
+            for (int x = 0; x < width; x++) xs[x] = (x0 + x) * noise.mFrequency;
+            for (int y = 0; y < height; y++) ys[y] = (y0 + y) * noise.mFrequency;
+        }
+
+        void Fill()
+        {
+            for (int column = 0; column < xs.length; )
+            {
+                int xr = FastRound(xs[column]);
+                int columnEnd = column;
+                while (columnEnd + 1 < xs.length && FastRound(xs[columnEnd + 1]) == xr) columnEnd++;
+
+                for (int row = 0; row < ys.length; )
+                {
+                    int yr = FastRound(ys[row]);
+                    int rowEnd = row;
+                    while (rowEnd + 1 < ys.length && FastRound(ys[rowEnd + 1]) == yr) rowEnd++;
+
+                    LoadPoints(xr, yr);
+                    FillBlock(column, columnEnd, row, rowEnd);
+                    row = rowEnd + 1;
+                }
+                column = columnEnd + 1;
+            }
+        }
+
+        // same feature points, hashes and jitter as SingleCellular
+        private void LoadPoints(int xr, int yr)
+        {
+            float cellularJitter = 0.43701595f * noise.mCellularJitterModifier;
+            int xPrimed = (xr - 1) * PrimeX;
+            int i = 0;
+            for (int xi = xr - 1; xi <= xr + 1; xi++)
+            {
+                int yPrimed = (yr - 1) * PrimeY;
+                for (int yi = yr - 1; yi <= yr + 1; yi++)
+                {
+                    int hash = Hash(noise.mSeed, xPrimed, yPrimed);
+                    int idx = hash & (255 << 1);
+                    pointX[i] = xi + (double)(RandVecs2D[idx] * cellularJitter);
+                    pointY[i] = yi + (double)(RandVecs2D[idx | 1] * cellularJitter);
+                    pointCategory[i] = classifier.classify(hash * (1 / 2147483648.0f));
+                    i++;
+                    yPrimed += PrimeY;
+                }
+                xPrimed += PrimeX;
+            }
+        }
+
+        // inclusive sample ranges
+        private void FillBlock(int column0, int column1, int row0, int row1)
+        {
+            if (column0 == column1 && row0 == row1)
+            {
+                out[column0 * height + row0] = classifier.classify(noise.SingleCellular(noise.mSeed, xs[column0], ys[row0]));
+                return;
+            }
+
+            int category = BlockCategory(xs[column0], xs[column1], ys[row0], ys[row1]);
+            if (category != Integer.MIN_VALUE)
+            {
+                for (int x = column0; x <= column1; x++)
+                {
+                    for (int y = row0; y <= row1; y++)
+                    {
+                        out[x * height + y] = category;
+                    }
+                }
+                return;
+            }
+
+            if (column1 - column0 >= row1 - row0)
+            {
+                int middle = (column0 + column1) >>> 1;
+                FillBlock(column0, middle, row0, row1);
+                FillBlock(middle + 1, column1, row0, row1);
+            }
+            else
+            {
+                int middle = (row0 + row1) >>> 1;
+                FillBlock(column0, column1, row0, middle);
+                FillBlock(column0, column1, middle + 1, row1);
+            }
+        }
+
+        // the category every sample of the block has, Integer.MIN_VALUE when it can not be decided for the whole block
+        private int BlockCategory(float minX, float maxX, float minY, float maxY)
+        {
+            double bestMax = Double.MAX_VALUE;
+            for (int i = 0; i < 9; i++)
+            {
+                double lowX = pointX[i] - maxX;
+                double highX = pointX[i] - minX;
+                double lowY = pointY[i] - maxY;
+                double highY = pointY[i] - minY;
+                double nearX = lowX <= 0 && highX >= 0 ? 0 : Math.min(Math.abs(lowX), Math.abs(highX));
+                double nearY = lowY <= 0 && highY >= 0 ? 0 : Math.min(Math.abs(lowY), Math.abs(highY));
+                double farX = Math.max(Math.abs(lowX), Math.abs(highX));
+                double farY = Math.max(Math.abs(lowY), Math.abs(highY));
+                minDistance[i] = Distance(nearX, nearY);
+                maxDistance[i] = Distance(farX, farY);
+                bestMax = Math.min(bestMax, maxDistance[i]);
+            }
+
+            int category = Integer.MIN_VALUE;
+            for (int i = 0; i < 9; i++)
+            {
+                if (minDistance[i] > bestMax + MARGIN) continue;
+                if (category == Integer.MIN_VALUE) category = pointCategory[i];
+                else if (category != pointCategory[i]) return Integer.MIN_VALUE;
+            }
+            return category;
+        }
+
+        // every distance function grows with the absolute offsets, so the bounds come from the nearest and farthest offsets
+        private double Distance(double x, double y)
+        {
+            switch (noise.mCellularDistanceFunction)
+            {
+                default:
+                case Euclidean:
+                case EuclideanSq:
+                    return x * x + y * y;
+                case Manhattan:
+                    return x + y;
+                case Hybrid:
+                    return (x + y) + (x * x + y * y);
+            }
+        }
+    }
+
     private float SingleCellular(int seed, /*FNLfloat*/ float x, /*FNLfloat*/ float y, /*FNLfloat*/ float z)
     {
         int xr = FastRound(x);
@@ -1679,35 +2040,7 @@ public class FastNoiseLite
                 break;
         }
 
-        if (mCellularDistanceFunction == CellularDistanceFunction.Euclidean && mCellularReturnType != CellularReturnType.CellValue)
-        {
-            distance0 = FastSqrt(distance0);
-
-            if (mCellularReturnType != CellularReturnType.Distance)
-            {
-                distance1 = FastSqrt(distance1);
-            }
-        }
-
-        switch (mCellularReturnType)
-        {
-            case CellValue:
-                return closestHash * (1 / 2147483648.0f);
-            case Distance:
-                return distance0 - 1;
-            case Distance2:
-                return distance1 - 1;
-            case Distance2Add:
-                return (distance1 + distance0) * 0.5f - 1;
-            case Distance2Sub:
-                return distance1 - distance0 - 1;
-            case Distance2Mul:
-                return distance1 * distance0 * 0.5f - 1;
-            case Distance2Div:
-                return distance0 / distance1 - 1;
-            default:
-                return 0;
-        }
+        return CellularResult(distance0, distance1, closestHash);
     }
 
 
@@ -0,0 +1,101 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+// Cost of the cheapest way from every cell of the WorldGraph to one goal cell, shared by every tank chasing that goal.
+// It is rebuilt only when the goal moves to another cell or the grid changes, a tank then just compares the cells
+// around it to know where to go, so steering costs the same no matter how many tanks follow the field.
+// Step costs are integers, so Dijkstra runs on a ring of buckets (Dial's algorithm) instead of a heap.
+public class FlowField {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int BUCKETS = WorldGraph.MAX_STEP_COST + 1; // no edge reaches further ahead than the ring is long
+
+    private final WorldGraph graph;
+    private final int[] distance = new int[WorldGraph.NODE_COUNT];
+    private final IntArray[] buckets = new IntArray[BUCKETS];
+    private final int[] neighbours = new int[WorldGraph.DIRECTION_COUNT];
+    private int goal = -1;
+    private int graphVersion;
+
+    public FlowField(WorldGraph graph) {
+        this.graph = graph;
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = new IntArray();
+    }
+
+    // rebuilds the field when the goal is in another cell than last time or the grid changed, true when it was rebuilt
+    public boolean update(int goalCell) {
+        if (goalCell < 0) return false;
+        if (goalCell == goal && graphVersion == graph.getVersion()) return false;
+        goal = goalCell;
+        graphVersion = graph.getVersion();
+        build();
+        return true;
+    }
+
+    private void build() {
+        Arrays.fill(distance, UNREACHABLE);
+        for (IntArray bucket : buckets) bucket.clear();
+        distance[goal] = 0;
+        buckets[0].add(goal);
+        int queued = 1;
+
+        for (int current = 0; queued > 0; current++) {
+            // every edge costs more than zero, so nothing is added to the bucket being read
+            IntArray bucket = buckets[current % BUCKETS];
+            for (int i = 0; i < bucket.size; i++) {
+                int cell = bucket.get(i);
+                if (distance[cell] != current) continue; // settled earlier through a cheaper way
+                graph.getNeighbours(cell, neighbours);
+                for (int direction = 0; direction < WorldGraph.DIRECTION_COUNT; direction++) {
+                    int neighbour = neighbours[direction];
+                    if (neighbour < 0) continue;
+                    int cost = current + graph.getStepCost(cell, neighbour, direction);
+                    if (cost < distance[neighbour]) {
+                        distance[neighbour] = cost;
+                        buckets[cost % BUCKETS].add(neighbour);
+                        queued++;
+                    }
+                }
+            }
+            queued -= bucket.size;
+            bucket.clear();
+        }
+    }
+
+    // cost from the cell to the goal, UNREACHABLE when there is no way
+    public int getDistance(int cell) {
+        return cell < 0 ? UNREACHABLE : distance[cell];
+    }
+
+    // the neighbour one step closer to the goal, -1 at the goal or when it can not be reached from the cell.
+    // A tank standing on a blocked cell still gets the best walkable neighbour to leave it by.
+    public int nextCell(int cell) {
+        if (cell < 0 || cell == goal) return -1;
+        int best = -1;
+        int bestDistance = UNREACHABLE;
+        graph.getNeighbours(cell, neighbours);
+        for (int direction = 0; direction < WorldGraph.DIRECTION_COUNT; direction++) {
+            int neighbour = neighbours[direction];
+            if (neighbour < 0 || distance[neighbour] == UNREACHABLE) continue;
+            int cost = distance[neighbour] + graph.getStepCost(cell, neighbour, direction);
+            if (cost < bestDistance) {
+                bestDistance = cost;
+                best = neighbour;
+            }
+        }
+        return best >= 0 && distance[best] < distance[cell] ? best : -1;
+    }
+
+    // the cell reached after following the field for up to steps cells, -1 when it does not lead anywhere
+    public int lookAhead(int cell, int steps) {
+        int current = cell;
+        for (int i = 0; i < steps; i++) {
+            int next = nextCell(current);
+            if (next < 0) break;
+            current = next;
+        }
+        return current == cell ? -1 : current;
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.SkinLoader;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.github.tommyettinger.textra.FWSkin;
+
+// Every texture, skin and sound of the game, loaded once in the background and shared by all subsystems.
+// Subsystems are handed what they need from here and never load or dispose assets themselves.
+// The AssetManager behind it counts references, so the skin's own atlas stays loaded as a dependency of the skin
+// and dispose releases everything together.
+public class GameAssets implements Disposable {
+    public static final String ATLAS = "tank_game.atlas";
+    public static final String SKIN = "ui_tank_game.json";
+    public static final String CLICK_SOUND = "sounds/click_ui.mp3";
+    public static final String CAR_SOUND = "sounds/destroy_car.mp3";
+    public static final String TANK_SOUND = "sounds/destroy_tank.mp3";
+    public static final String HOUSE_SOUND = "sounds/house_destroy.mp3";
+    public static final String DEFLECT_SOUND = "sounds/tank_deflect.mp3";
+    public static final String BULLET_SOUND = "sounds/shoot_bullet.mp3";
+    public static final String MISSILE_SOUND = "sounds/shoot_rpg.mp3";
+    private static final String[] SOUNDS = {CLICK_SOUND, CAR_SOUND, TANK_SOUND, HOUSE_SOUND, DEFLECT_SOUND, BULLET_SOUND, MISSILE_SOUND};
+
+    private final AssetManager manager = new AssetManager();
+    private final long queuedNanos;
+    private float loadMillis = -1; // -1 until everything is loaded
+    private TileCells tileCells;
+
+    // queues every asset, call update each frame or finishLoading to load them
+    public GameAssets() {
+        manager.setLoader(Skin.class, new FWSkinLoader(manager.getFileHandleResolver()));
+        manager.load(ATLAS, TextureAtlas.class);
+        manager.load(SKIN, Skin.class);
+        for (String sound : SOUNDS) manager.load(sound, Sound.class);
+        queuedNanos = TimeUtils.nanoTime();
+    }
+
+    // loads for a slice of a frame, true once everything is loaded
+    public boolean update() {
+        if (!manager.update(16)) return false;
+        if (loadMillis < 0) loaded();
+        return true;
+    }
+
+    // blocks until everything is loaded, for tools and benchmarks without a loading screen
+    public void finishLoading() {
+        manager.finishLoading();
+        if (loadMillis < 0) loaded();
+    }
+
+    public float getProgress() {
+        return manager.getProgress();
+    }
+
+    public TextureAtlas atlas() {
+        return manager.get(ATLAS, TextureAtlas.class);
+    }
+
+    // the map tiles of the atlas, built once and shared by every chunk
+    public TileCells tileCells() {
+        if (tileCells == null) tileCells = new TileCells(atlas());
+        return tileCells;
+    }
+
+    public Skin skin() {
+        return manager.get(SKIN, Skin.class);
+    }
+
+    public Sound sound(String path) {
+        return manager.get(path, Sound.class);
+    }
+
+    // time from queueing to the last asset, -1 while loading
+    public float getLoadMillis() {
+        return loadMillis;
+    }
+
+    // bytes of the loaded textures on the GPU, without mipmaps
+    public long getTextureBytes() {
+        long bytes = 0;
+        for (Texture texture : manager.getAll(Texture.class, new Array<>())) {
+            bytes += (long) texture.getWidth() * texture.getHeight() * bytesPerPixel(texture);
+        }
+        return bytes;
+    }
+
+    private void loaded() {
+        loadMillis = (TimeUtils.nanoTime() - queuedNanos) / 1000000f;
+        Gdx.app.log("GameAssets", manager.getLoadedAssets() + " assets loaded in " + loadMillis + " ms, textures: "
+            + getTextureBytes() / 1024 + " KB");
+    }
+
+    private static int bytesPerPixel(Texture texture) {
+        switch (texture.getTextureData().getFormat()) {
+            case Alpha:
+            case Intensity: return 1;
+            case LuminanceAlpha:
+            case RGB565:
+            case RGBA4444: return 2;
+            case RGB888: return 3;
+            default: return 4;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        manager.dispose();
+    }
+
+    // loads the skin as an FWSkin so its fonts are read the way TextraTypist expects
+    private static class FWSkinLoader extends SkinLoader {
+        FWSkinLoader(FileHandleResolver resolver) {
+            super(resolver);
+        }
+
+        @Override
+        protected Skin newSkin(TextureAtlas atlas) {
+            return new FWSkin(atlas);
+        }
+    }
+}
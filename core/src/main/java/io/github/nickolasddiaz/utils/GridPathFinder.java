@@ -0,0 +1,133 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderQueue;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.Arrays;
+
+// The A* of IndexedAStarPathFinder over the WorldGraph, interrupted and resumed the same way by search(request, time).
+// The graph reuses its edges for every node, so the node records are arrays by cell that keep the cell each node
+// was reached from, and the path is rebuilt from them instead of from the edges.
+// Only one search may run on a graph at a time.
+public class GridPathFinder implements PathFinder<Integer> {
+    private static final byte OPEN = 1;
+    private static final byte CLOSED = 2;
+
+    private final WorldGraph graph;
+    // node records, per cell and valid for the search that stamped them
+    private final float[] costSoFar = new float[WorldGraph.NODE_COUNT];
+    private final int[] parent = new int[WorldGraph.NODE_COUNT];
+    private final byte[] category = new byte[WorldGraph.NODE_COUNT];
+    private final int[] stamps = new int[WorldGraph.NODE_COUNT];
+    private int search = 0;
+
+    private final IntHeap open = new IntHeap(); // cells by estimated total cost
+    private Integer goal;
+    private int goalCell;
+    private Heuristic<Integer> heuristic;
+
+    public GridPathFinder(WorldGraph graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public boolean searchNodePath(Integer startNode, Integer endNode, Heuristic<Integer> heuristic, GraphPath<Integer> outPath) {
+        if (!runSearch(startNode, endNode, heuristic)) return false;
+        generateNodePath(outPath);
+        return true;
+    }
+
+    @Override
+    public boolean searchConnectionPath(Integer startNode, Integer endNode, Heuristic<Integer> heuristic, GraphPath<Connection<Integer>> outPath) {
+        if (!runSearch(startNode, endNode, heuristic)) return false;
+        generateConnectionPath(outPath);
+        return true;
+    }
+
+    // runs until the path is found or timeToRun nanoseconds are spent, false when interrupted
+    @Override
+    public boolean search(PathFinderRequest<Integer> request, long timeToRun) {
+        long lastTime = TimeUtils.nanoTime();
+        if (request.statusChanged) {
+            initSearch(request.startNode, request.endNode, request.heuristic);
+            request.statusChanged = false;
+        }
+        while (!open.isEmpty()) {
+            long currentTime = TimeUtils.nanoTime();
+            timeToRun -= currentTime - lastTime;
+            if (timeToRun <= PathFinderQueue.TIME_TOLERANCE) return false;
+            if (closeNext() == goalCell) {
+                request.pathFound = true;
+                generateNodePath(request.resultPath);
+                return true;
+            }
+            lastTime = currentTime;
+        }
+        request.pathFound = false;
+        return true;
+    }
+
+    private boolean runSearch(Integer startNode, Integer endNode, Heuristic<Integer> heuristic) {
+        initSearch(startNode, endNode, heuristic);
+        while (!open.isEmpty()) {
+            if (closeNext() == goalCell) return true;
+        }
+        return false;
+    }
+
+    private void initSearch(Integer startNode, Integer endNode, Heuristic<Integer> heuristic) {
+        if (++search == 0) { // the stamps wrapped around, forget every old one
+            Arrays.fill(stamps, 0);
+            search = 1;
+        }
+        goal = endNode;
+        goalCell = endNode;
+        this.heuristic = heuristic;
+        open.clear();
+        int start = startNode;
+        stamps[start] = search;
+        category[start] = OPEN;
+        costSoFar[start] = 0;
+        parent[start] = -1;
+        open.push(start, heuristic.estimate(startNode, endNode));
+    }
+
+    // takes the cheapest cell off the open list and opens its neighbours, -1 when it was a copy of a closed cell
+    private int closeNext() {
+        int cell = open.pop();
+        if (category[cell] == CLOSED) return -1; // queued again later with a lower cost
+        category[cell] = CLOSED;
+        if (cell == goalCell) return cell;
+
+        Array<Connection<Integer>> connections = graph.getConnections(graph.getNode(cell));
+        for (int i = 0; i < connections.size; i++) {
+            Connection<Integer> connection = connections.get(i);
+            Integer node = connection.getToNode();
+            int toCell = node;
+            float nodeCost = costSoFar[cell] + connection.getCost();
+            if (stamps[toCell] == search && costSoFar[toCell] <= nodeCost) continue;
+            stamps[toCell] = search;
+            costSoFar[toCell] = nodeCost;
+            parent[toCell] = cell;
+            category[toCell] = OPEN; // a closed cell reached for less is opened again
+            open.push(toCell, nodeCost + heuristic.estimate(node, goal));
+        }
+        return cell;
+    }
+
+    private void generateNodePath(GraphPath<Integer> outPath) {
+        for (int cell = goalCell; cell >= 0; cell = parent[cell]) outPath.add(graph.getNode(cell));
+        outPath.reverse();
+    }
+
+    private void generateConnectionPath(GraphPath<Connection<Integer>> outPath) {
+        for (int cell = goalCell; parent[cell] >= 0; cell = parent[cell]) outPath.add(graph.newEdge(parent[cell], cell));
+        outPath.reverse();
+    }
+}
@@ -0,0 +1,359 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+import static io.github.nickolasddiaz.utils.MapGenerator.*;
+import static io.github.nickolasddiaz.utils.WorldGraph.CARDINAL_COST;
+
+// Abstract graph over the WorldGraph for long searches (HPA*). The window is cut into clusters of ROAD_SIZE tiles,
+// the same cells TerrainGenerator lays roads and structures on, 8x8 per chunk and 24x24 over the window.
+// Where a cluster borders its neighbour the walkable crossings become entrances, and the cost between the entrances
+// of a cluster is worked out ahead of time, so a search only steps from entrance to entrance.
+// Clusters are rebuilt when a chunk slot of the grid is written, the ones around the slot too since their borders changed.
+// The found route is only turned back into cells for the first clusters, the rest is searched again as the tank gets there.
+// The search over the entrances is an A* on int arrays like JumpPointFinder, it needs no node or edge objects.
+public class HierarchicalGraph {
+    public static final int CLUSTER_SIZE = ROAD_SIZE;
+    private static final int CLUSTERS = ALL_CHUNK_SIZE / CLUSTER_SIZE; // per side of the window
+    private static final int CLUSTER_COUNT = CLUSTERS * CLUSTERS;
+    private static final int CLUSTERS_PER_CHUNK = MAP_SIZE / CLUSTER_SIZE;
+    private static final int CLUSTER_CELLS = CLUSTER_SIZE * CLUSTER_SIZE;
+    // one entrance in the middle of every crossing, a border has at most one per two tiles
+    private static final int MAX_ENTRANCES = 4 * (CLUSTER_SIZE / 2);
+    private static final int REFINED_CLUSTERS = 2; // borders crossed before the path is left unrefined
+    private static final int START = CLUSTER_COUNT * MAX_ENTRANCES;
+    private static final int GOAL = START + 1;
+    private static final int NODE_COUNT = GOAL + 1;
+    private static final int NO_WAY = Integer.MAX_VALUE;
+    private static final int BUCKETS = WorldGraph.MAX_STEP_COST + 1;
+
+    private final WorldGraph graph;
+    private final OctileDistance octile;
+
+    // entrances of each cluster: the cell inside, the cell across the border and the costs between them
+    private final int[] entranceCount = new int[CLUSTER_COUNT];
+    private final int[] entranceCell = new int[CLUSTER_COUNT * MAX_ENTRANCES];
+    private final int[] entranceOutside = new int[CLUSTER_COUNT * MAX_ENTRANCES];
+    private final int[] cost = new int[CLUSTER_COUNT * MAX_ENTRANCES * MAX_ENTRANCES];
+    private final int[] chunkVersions = new int[3 * 3];
+    private final boolean[] dirty = new boolean[CLUSTER_COUNT];
+
+    // the current search, the start and goal are joined to the entrances of their clusters
+    private int startCell;
+    private int goalCell;
+    private int startCluster;
+    private int goalCluster;
+    private final int[] startCost = new int[MAX_ENTRANCES];
+    private final int[] goalCost = new int[MAX_ENTRANCES];
+    private int directCost; // start to goal without leaving their cluster
+    private final IntArray abstractPath = new IntArray(); // abstract nodes from START to GOAL
+    private boolean lastPathPartial;
+
+    // A* over the abstract nodes, per node and valid for the search that stamped them
+    private final int[] nodeCost = new int[NODE_COUNT];
+    private final int[] parent = new int[NODE_COUNT];
+    private final int[] opened = new int[NODE_COUNT];
+    private final int[] closed = new int[NODE_COUNT];
+    private final IntHeap open = new IntHeap(); // nodes by estimated total cost
+    private int search = 0;
+    private int visited;
+
+    // Dijkstra inside one cluster, local index is x * CLUSTER_SIZE + y
+    private final int[] localDistance = new int[CLUSTER_CELLS];
+    private final int[] localParent = new int[CLUSTER_CELLS];
+    private final IntArray[] buckets = new IntArray[BUCKETS];
+    private final int[] neighbours = new int[WorldGraph.DIRECTION_COUNT];
+    private final IntArray leg = new IntArray();
+
+    public HierarchicalGraph(WorldGraph graph) {
+        this.graph = graph;
+        this.octile = new OctileDistance(graph);
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = new IntArray();
+        Arrays.fill(chunkVersions, -1);
+    }
+
+    // searches from one walkable cell to another and fills out with the cells of the way, false when there is none.
+    // Only the part of the way up to REFINED_CLUSTERS borders from the start is filled in when the goal is further.
+    public boolean findPath(int fromCell, int toCell, GraphPath<Integer> out) {
+        update();
+        out.clear();
+        lastPathPartial = false;
+        startCell = fromCell;
+        goalCell = toCell;
+        startCluster = clusterOf(fromCell);
+        goalCluster = clusterOf(toCell);
+        linkToCluster(startCluster, fromCell, startCost);
+        directCost = startCluster == goalCluster ? localDistance[localIndex(toCell)] : NO_WAY;
+        linkToCluster(goalCluster, toCell, goalCost);
+
+        if (!searchAbstract()) return false;
+        abstractPath.clear();
+        for (int node = GOAL; node >= 0; node = parent[node]) abstractPath.add(node);
+        abstractPath.reverse();
+        refine(out);
+        return true;
+    }
+
+    // true when the last path found stops short of the goal
+    public boolean isLastPathPartial() {
+        return lastPathPartial;
+    }
+
+    // abstract nodes the last search visited
+    public int getLastVisitedNodes() {
+        return visited;
+    }
+
+    // rebuilds the clusters of the chunk slots written since the last search and the clusters bordering them
+    public void update() {
+        boolean changed = false;
+        for (int slotX = 0; slotX < 3; slotX++) {
+            for (int slotY = 0; slotY < 3; slotY++) {
+                int version = graph.getChunkVersion(slotX, slotY);
+                if (chunkVersions[slotX * 3 + slotY] == version) continue;
+                chunkVersions[slotX * 3 + slotY] = version;
+                changed = true;
+                // one cluster further on every side, their entrances face the slot
+                for (int x = -1; x <= CLUSTERS_PER_CHUNK; x++) {
+                    for (int y = -1; y <= CLUSTERS_PER_CHUNK; y++) {
+                        int clusterX = wrapCluster(slotX * CLUSTERS_PER_CHUNK + x);
+                        int clusterY = wrapCluster(slotY * CLUSTERS_PER_CHUNK + y);
+                        dirty[clusterX * CLUSTERS + clusterY] = true;
+                    }
+                }
+            }
+        }
+        if (!changed) return;
+        for (int cluster = 0; cluster < CLUSTER_COUNT; cluster++) {
+            if (!dirty[cluster]) continue;
+            dirty[cluster] = false;
+            buildCluster(cluster);
+        }
+    }
+
+    private void buildCluster(int cluster) {
+        int clusterX = cluster / CLUSTERS;
+        int clusterY = cluster % CLUSTERS;
+        entranceCount[cluster] = 0;
+        // right, up, left, down, both sides of a border list the same crossings
+        addEntrances(cluster, clusterX, clusterY, true, false);
+        addEntrances(cluster, clusterX, clusterY, false, false);
+        addEntrances(cluster, wrapCluster(clusterX - 1), clusterY, true, true);
+        addEntrances(cluster, clusterX, wrapCluster(clusterY - 1), false, true);
+
+        int base = cluster * MAX_ENTRANCES;
+        int count = entranceCount[cluster];
+        for (int from = 0; from < count; from++) {
+            searchCluster(cluster, entranceCell[base + from]);
+            for (int to = 0; to < count; to++) {
+                cost[(base + from) * MAX_ENTRANCES + to] = localDistance[localIndex(entranceCell[base + to])];
+            }
+        }
+    }
+
+    // entrances on the border between the cluster at lowX, lowY and the one right of it or above it.
+    // The cluster being built is the low one unless high is set.
+    private void addEntrances(int cluster, int lowX, int lowY, boolean horizontal, boolean high) {
+        int run = 0;
+        for (int i = 0; i <= CLUSTER_SIZE; i++) {
+            if (i < CLUSTER_SIZE && isCrossing(lowX, lowY, horizontal, i)) {
+                run++;
+                continue;
+            }
+            if (run > 0) addEntrance(cluster, lowX, lowY, horizontal, high, i - 1 - run / 2);
+            run = 0;
+        }
+    }
+
+    // the two cells facing each other at position i of the border are walkable and the window does not end between them
+    private boolean isCrossing(int lowX, int lowY, boolean horizontal, int i) {
+        int low = borderCell(lowX, lowY, horizontal, false, i);
+        if (!graph.isWalkable(low)) return false;
+        graph.getNeighbours(low, neighbours);
+        return neighbours[horizontal ? 1 : 0] == borderCell(lowX, lowY, horizontal, true, i);
+    }
+
+    private void addEntrance(int cluster, int lowX, int lowY, boolean horizontal, boolean high, int i) {
+        int slot = cluster * MAX_ENTRANCES + entranceCount[cluster]++;
+        entranceCell[slot] = borderCell(lowX, lowY, horizontal, high, i);
+        entranceOutside[slot] = borderCell(lowX, lowY, horizontal, !high, i);
+    }
+
+    // cell i along the border seen from the low or the high cluster
+    private static int borderCell(int lowX, int lowY, boolean horizontal, boolean high, int i) {
+        int x;
+        int y;
+        if (horizontal) {
+            x = high ? wrapCluster(lowX + 1) * CLUSTER_SIZE : lowX * CLUSTER_SIZE + CLUSTER_SIZE - 1;
+            y = lowY * CLUSTER_SIZE + i;
+        } else {
+            x = lowX * CLUSTER_SIZE + i;
+            y = high ? wrapCluster(lowY + 1) * CLUSTER_SIZE : lowY * CLUSTER_SIZE + CLUSTER_SIZE - 1;
+        }
+        return x * ALL_CHUNK_SIZE + y;
+    }
+
+    // costs from a cell to the entrances of its cluster
+    private void linkToCluster(int cluster, int cell, int[] out) {
+        searchCluster(cluster, cell);
+        int base = cluster * MAX_ENTRANCES;
+        for (int i = 0; i < entranceCount[cluster]; i++) {
+            out[i] = localDistance[localIndex(entranceCell[base + i])];
+        }
+    }
+
+    // Dijkstra on buckets like FlowField, without leaving the cluster
+    private void searchCluster(int cluster, int fromCell) {
+        Arrays.fill(localDistance, NO_WAY);
+        for (IntArray bucket : buckets) bucket.clear();
+        localDistance[localIndex(fromCell)] = 0;
+        localParent[localIndex(fromCell)] = -1;
+        buckets[0].add(fromCell);
+        int queued = 1;
+
+        for (int current = 0; queued > 0; current++) {
+            IntArray bucket = buckets[current % BUCKETS];
+            for (int i = 0; i < bucket.size; i++) {
+                int cell = bucket.get(i);
+                if (localDistance[localIndex(cell)] != current) continue;
+                graph.getNeighbours(cell, neighbours);
+                for (int direction = 0; direction < WorldGraph.DIRECTION_COUNT; direction++) {
+                    int neighbour = neighbours[direction];
+                    if (neighbour < 0 || clusterOf(neighbour) != cluster) continue;
+                    int distance = current + graph.getStepCost(cell, neighbour, direction);
+                    int index = localIndex(neighbour);
+                    if (distance < localDistance[index]) {
+                        localDistance[index] = distance;
+                        localParent[index] = cell;
+                        buckets[distance % BUCKETS].add(neighbour);
+                        queued++;
+                    }
+                }
+            }
+            queued -= bucket.size;
+            bucket.clear();
+        }
+    }
+
+    // turns the abstract path into cells until REFINED_CLUSTERS borders are crossed
+    private void refine(GraphPath<Integer> out) {
+        out.add(graph.getNode(startCell));
+        int crossed = 0;
+        for (int i = 1; i < abstractPath.size; i++) {
+            int from = abstractPath.get(i - 1);
+            int to = abstractPath.get(i);
+            int fromCell = nodeCell(from);
+            int toCell = nodeCell(to);
+            int fromCluster = from == START ? startCluster : from / MAX_ENTRANCES;
+            int toCluster = to == GOAL ? goalCluster : to / MAX_ENTRANCES;
+            if (fromCluster != toCluster) {
+                // across a border, the two cells are neighbours
+                out.add(graph.getNode(toCell));
+                if (++crossed >= REFINED_CLUSTERS && i < abstractPath.size - 1) {
+                    lastPathPartial = true;
+                    return;
+                }
+                continue;
+            }
+            if (fromCell == toCell) continue;
+            searchCluster(fromCluster, fromCell);
+            leg.clear();
+            for (int cell = toCell; cell != fromCell; cell = localParent[localIndex(cell)]) leg.add(cell);
+            for (int j = leg.size - 1; j >= 0; j--) out.add(graph.getNode(leg.get(j)));
+        }
+    }
+
+    private int nodeCell(int node) {
+        if (node == START) return startCell;
+        if (node == GOAL) return goalCell;
+        return entranceCell[node];
+    }
+
+    private static int clusterOf(int cell) {
+        int x = cell / ALL_CHUNK_SIZE;
+        int y = cell - x * ALL_CHUNK_SIZE;
+        return x / CLUSTER_SIZE * CLUSTERS + y / CLUSTER_SIZE;
+    }
+
+    private static int localIndex(int cell) {
+        int x = cell / ALL_CHUNK_SIZE;
+        int y = cell - x * ALL_CHUNK_SIZE;
+        return x % CLUSTER_SIZE * CLUSTER_SIZE + y % CLUSTER_SIZE;
+    }
+
+    private static int wrapCluster(int cluster) {
+        return (cluster + CLUSTERS) % CLUSTERS;
+    }
+
+    // the octile distance as if every cell were road, in tenths of a tile like the costs
+    private int estimate(int node) {
+        return (int) (octile.distance(nodeCell(node), goalCell) * CARDINAL_COST);
+    }
+
+    private boolean searchAbstract() {
+        if (++search == 0) { // the stamps wrapped around, forget every old one
+            Arrays.fill(opened, 0);
+            Arrays.fill(closed, 0);
+            search = 1;
+        }
+        visited = 0;
+        open.clear();
+        opened[START] = search;
+        nodeCost[START] = 0;
+        parent[START] = -1;
+        open.push(START, estimate(START));
+        while (!open.isEmpty()) {
+            int node = open.pop();
+            if (closed[node] == search) continue; // queued again later with a lower cost
+            closed[node] = search;
+            visited++;
+            if (node == GOAL) return true;
+            expand(node);
+        }
+        return false;
+    }
+
+    private void expand(int node) {
+        if (node == START) {
+            int base = startCluster * MAX_ENTRANCES;
+            for (int i = 0; i < entranceCount[startCluster]; i++) {
+                if (startCost[i] != NO_WAY) relax(START, base + i, startCost[i]);
+            }
+            if (directCost != NO_WAY) relax(START, GOAL, directCost);
+            return;
+        }
+
+        int cluster = node / MAX_ENTRANCES;
+        int base = cluster * MAX_ENTRANCES;
+        int entrance = node - base;
+        for (int i = 0; i < entranceCount[cluster]; i++) {
+            int between = cost[node * MAX_ENTRANCES + i];
+            if (i != entrance && between != NO_WAY) relax(node, base + i, between);
+        }
+        if (cluster == goalCluster && goalCost[entrance] != NO_WAY) relax(node, GOAL, goalCost[entrance]);
+
+        // the entrance on the other side of the border
+        int outside = entranceOutside[node];
+        int other = clusterOf(outside);
+        int otherBase = other * MAX_ENTRANCES;
+        for (int i = 0; i < entranceCount[other]; i++) {
+            if (entranceCell[otherBase + i] == outside && entranceOutside[otherBase + i] == entranceCell[node]) {
+                relax(node, otherBase + i, graph.getStepCost(entranceCell[node], outside, 0)); // a straight step
+                break;
+            }
+        }
+    }
+
+    private void relax(int from, int to, int stepCost) {
+        if (closed[to] == search) return;
+        int newCost = nodeCost[from] + stepCost;
+        if (opened[to] == search && newCost >= nodeCost[to]) return;
+        opened[to] = search;
+        nodeCost[to] = newCost;
+        parent[to] = from;
+        open.push(to, newCost + estimate(to));
+    }
+}
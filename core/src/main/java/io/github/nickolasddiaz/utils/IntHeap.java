@@ -0,0 +1,56 @@
+package io.github.nickolasddiaz.utils;
+
+import java.util.Arrays;
+
+// Binary min heap of ints by a priority, the open list of the finders that search on int arrays.
+// An item may be pushed more than once, the finder skips the copies it already closed.
+class IntHeap {
+    private int[] items = new int[256];
+    private float[] priorities = new float[256];
+    private int size;
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void push(int item, float priority) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int up = (i - 1) / 2;
+            if (priorities[up] <= priority) break;
+            items[i] = items[up];
+            priorities[i] = priorities[up];
+            i = up;
+        }
+        items[i] = item;
+        priorities[i] = priority;
+    }
+
+    // removes and returns the item with the lowest priority
+    public int pop() {
+        int top = items[0];
+        int item = items[--size];
+        float priority = priorities[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) child++;
+            if (priorities[child] >= priority) break;
+            items[i] = items[child];
+            priorities[i] = priorities[child];
+            i = child;
+        }
+        items[i] = item;
+        priorities[i] = priority;
+        return top;
+    }
+}
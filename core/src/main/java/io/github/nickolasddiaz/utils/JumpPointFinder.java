@@ -0,0 +1,177 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+import static io.github.nickolasddiaz.utils.MapGenerator.ALL_CHUNK_SIZE;
+import static io.github.nickolasddiaz.utils.WorldGraph.CARDINAL_COST;
+import static io.github.nickolasddiaz.utils.WorldGraph.DIAGONAL_COST;
+
+// Jump Point Search on the walkability bits of the WorldGraph. Every move costs the same, so instead of putting
+// each neighbour on the open list a search runs straight or diagonally until something forces a turn and only
+// queues that cell. The moves are the ones WorldGraph allows: 8 ways, diagonals only need the cell they land on.
+// The pruning only holds when every step of the same length costs the same, so the road and bush weights of the
+// WorldGraph are left out and paths are the shortest ones rather than the fastest.
+// Works on positions inside the window, the path it gives is every cell of the way like the other finders.
+public class JumpPointFinder {
+    private static final int SIZE = ALL_CHUNK_SIZE;
+
+    private final WorldGraph graph;
+    // per position inside the window (x * 240 + y), valid for the search that stamped them
+    private final int[] cost = new int[WorldGraph.NODE_COUNT];
+    private final int[] parent = new int[WorldGraph.NODE_COUNT];
+    private final int[] opened = new int[WorldGraph.NODE_COUNT];
+    private final int[] closed = new int[WorldGraph.NODE_COUNT];
+    private int search = 0;
+    private int goalX;
+    private int goalY;
+    private int expanded;
+
+    private final IntHeap open = new IntHeap(); // positions by estimated total cost
+
+    private final IntArray jumpPoints = new IntArray();
+
+    public JumpPointFinder(WorldGraph graph) {
+        this.graph = graph;
+    }
+
+    // searches from one cell to another and fills out with the cells of the way, false when either is blocked or there is no way
+    public boolean findPath(int fromCell, int toCell, GraphPath<Integer> out) {
+        out.clear();
+        expanded = 0;
+        if (!graph.isWalkable(fromCell) || !graph.isWalkable(toCell)) return false;
+        if (++search == 0) { // the stamps wrapped around, forget every old one
+            Arrays.fill(opened, 0);
+            Arrays.fill(closed, 0);
+            search = 1;
+        }
+        int start = graph.getRelativeX(fromCell) * SIZE + graph.getRelativeY(fromCell);
+        goalX = graph.getRelativeX(toCell);
+        goalY = graph.getRelativeY(toCell);
+        int goal = goalX * SIZE + goalY;
+
+        open.clear();
+        opened[start] = search;
+        cost[start] = 0;
+        parent[start] = -1;
+        open.push(start, estimate(start));
+        while (!open.isEmpty()) {
+            int node = open.pop();
+            if (closed[node] == search) continue; // queued again later with a lower cost
+            closed[node] = search;
+            expanded++;
+            if (node == goal) {
+                buildPath(goal, out);
+                return true;
+            }
+            addSuccessors(node);
+        }
+        return false;
+    }
+
+    // positions taken off the open list by the last search
+    public int getLastExpanded() {
+        return expanded;
+    }
+
+    private void addSuccessors(int node) {
+        int x = node / SIZE;
+        int y = node % SIZE;
+        if (parent[node] < 0) {
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if (dx != 0 || dy != 0) jumpFrom(node, x, y, dx, dy);
+                }
+            }
+            return;
+        }
+        // only the way it came from keeps going, plus the turns around a blocked cell next to it
+        int dx = Integer.signum(x - parent[node] / SIZE);
+        int dy = Integer.signum(y - parent[node] % SIZE);
+        if (dx != 0 && dy != 0) {
+            jumpFrom(node, x, y, dx, dy);
+            jumpFrom(node, x, y, dx, 0);
+            jumpFrom(node, x, y, 0, dy);
+            if (!walkable(x - dx, y)) jumpFrom(node, x, y, -dx, dy);
+            if (!walkable(x, y - dy)) jumpFrom(node, x, y, dx, -dy);
+        } else if (dx != 0) {
+            jumpFrom(node, x, y, dx, 0);
+            if (!walkable(x, y + 1)) jumpFrom(node, x, y, dx, 1);
+            if (!walkable(x, y - 1)) jumpFrom(node, x, y, dx, -1);
+        } else {
+            jumpFrom(node, x, y, 0, dy);
+            if (!walkable(x + 1, y)) jumpFrom(node, x, y, 1, dy);
+            if (!walkable(x - 1, y)) jumpFrom(node, x, y, -1, dy);
+        }
+    }
+
+    private void jumpFrom(int node, int x, int y, int dx, int dy) {
+        int jumpPoint = jump(x, y, dx, dy);
+        if (jumpPoint < 0 || closed[jumpPoint] == search) return;
+        int newCost = cost[node] + octile(Math.abs(jumpPoint / SIZE - x), Math.abs(jumpPoint % SIZE - y));
+        if (opened[jumpPoint] == search && newCost >= cost[jumpPoint]) return;
+        opened[jumpPoint] = search;
+        cost[jumpPoint] = newCost;
+        parent[jumpPoint] = node;
+        open.push(jumpPoint, newCost + estimate(jumpPoint));
+    }
+
+    // runs from x, y in one direction, the first position where the way may turn or -1 when it runs into a wall
+    private int jump(int x, int y, int dx, int dy) {
+        while (true) {
+            x += dx;
+            y += dy;
+            if (!walkable(x, y)) return -1;
+            if (x == goalX && y == goalY) return x * SIZE + y;
+            if (dx != 0 && dy != 0) {
+                if ((!walkable(x - dx, y) && walkable(x - dx, y + dy)) || (!walkable(x, y - dy) && walkable(x + dx, y - dy))) {
+                    return x * SIZE + y;
+                }
+                // a diagonal stops where one of its straight parts finds something
+                if (jump(x, y, dx, 0) >= 0 || jump(x, y, 0, dy) >= 0) return x * SIZE + y;
+            } else if (dx != 0) {
+                if ((!walkable(x, y + 1) && walkable(x + dx, y + 1)) || (!walkable(x, y - 1) && walkable(x + dx, y - 1))) {
+                    return x * SIZE + y;
+                }
+            } else {
+                if ((!walkable(x + 1, y) && walkable(x + 1, y + dy)) || (!walkable(x - 1, y) && walkable(x - 1, y + dy))) {
+                    return x * SIZE + y;
+                }
+            }
+        }
+    }
+
+    private boolean walkable(int x, int y) {
+        return graph.isWalkableAt(x, y);
+    }
+
+    // jump points run in a straight line from their parent, the cells between them are filled back in
+    private void buildPath(int goal, GraphPath<Integer> out) {
+        jumpPoints.clear();
+        for (int node = goal; node >= 0; node = parent[node]) jumpPoints.add(node);
+        int x = jumpPoints.peek() / SIZE;
+        int y = jumpPoints.peek() % SIZE;
+        out.add(graph.getNode(graph.getCellAt(x, y)));
+        for (int i = jumpPoints.size - 2; i >= 0; i--) {
+            int toX = jumpPoints.get(i) / SIZE;
+            int toY = jumpPoints.get(i) % SIZE;
+            int dx = Integer.signum(toX - x);
+            int dy = Integer.signum(toY - y);
+            while (x != toX || y != toY) {
+                x += dx;
+                y += dy;
+                out.add(graph.getNode(graph.getCellAt(x, y)));
+            }
+        }
+    }
+
+    private int estimate(int node) {
+        return octile(Math.abs(node / SIZE - goalX), Math.abs(node % SIZE - goalY));
+    }
+
+    private static int octile(int dx, int dy) {
+        return Math.max(dx, dy) * CARDINAL_COST + Math.min(dx, dy) * (DIAGONAL_COST - CARDINAL_COST);
+    }
+}
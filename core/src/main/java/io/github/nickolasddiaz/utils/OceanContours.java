@@ -0,0 +1,171 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+import static io.github.nickolasddiaz.utils.MapGenerator.MAP_SIZE;
+import static io.github.nickolasddiaz.utils.MapGenerator.itemSize;
+
+// Outlines of the ocean in a chunk as closed loops, one per coastline (an island inside the ocean gets its own loop).
+// Marching squares runs on the tile centres with everything outside the chunk counted as land, so every contour point
+// has exactly one segment leaving it and the loops always close. Diagonal corners of ocean are kept apart.
+// Each loop is then simplified with Douglas-Peucker so straight and diagonal coasts become a single edge.
+final class OceanContours {
+    static final float TOLERANCE = 0.5f; // how far in tiles a simplified edge may stray from the traced coast
+
+    // samples are the tiles with a ring of land around them, sample (i, j) is tile (i - 1, j - 1)
+    private static final int SAMPLES = MAP_SIZE + 2;
+    // contour points sit halfway along the sides of the marching squares cells,
+    // first the horizontal sides between samples (i, j) and (i + 1, j), then the vertical ones between (i, j) and (i, j + 1)
+    private static final int HORIZONTAL_POINTS = (SAMPLES - 1) * SAMPLES;
+    private static final int POINTS = HORIZONTAL_POINTS + SAMPLES * (SAMPLES - 1);
+
+    private OceanContours() {
+    }
+
+    // the loops of one chunk in world coordinates as x, y pairs, loops shorter than three points are dropped
+    static Array<float[]> trace(int[][] biomeMap, float xOffset, float yOffset) {
+        int[] next = new int[POINTS];
+        Arrays.fill(next, -1);
+        boolean[] ocean = new boolean[4];
+
+        for (int i = 0; i < SAMPLES - 1; i++) {
+            for (int j = 0; j < SAMPLES - 1; j++) {
+                // corners and sides of the cell counter clockwise from the bottom left, side k runs from corner k to corner k + 1
+                ocean[0] = isOcean(biomeMap, i, j);
+                ocean[1] = isOcean(biomeMap, i + 1, j);
+                ocean[2] = isOcean(biomeMap, i + 1, j + 1);
+                ocean[3] = isOcean(biomeMap, i, j + 1);
+
+                // a segment leaves a side going from ocean to land and ends on the next side back going from land to ocean,
+                // this keeps the ocean on its left and gives each ocean corner of a saddle its own segment
+                for (int k = 0; k < 4; k++) {
+                    if (!ocean[k] || ocean[(k + 1) & 3]) continue;
+                    int end = (k + 3) & 3;
+                    while (ocean[end] || !ocean[(end + 1) & 3]) end = (end + 3) & 3;
+                    next[side(i, j, k)] = side(i, j, end);
+                }
+            }
+        }
+
+        Array<float[]> loops = new Array<>();
+        FloatArray loop = new FloatArray();
+        for (int start = 0; start < POINTS; start++) {
+            if (next[start] < 0) continue;
+            loop.clear();
+            int point = start;
+            do {
+                loop.add(pointX(point));
+                loop.add(pointY(point));
+                int following = next[point];
+                next[point] = -1; // visited
+                point = following;
+            } while (point != start);
+
+            float[] simplified = simplify(loop);
+            if (simplified.length < 6) simplified = loop.toArray(); // a simplified pond or islet keeps its traced shape
+            if (simplified.length < 6) continue;
+            for (int v = 0; v < simplified.length; v += 2) {
+                simplified[v] = simplified[v] * itemSize + xOffset;
+                simplified[v + 1] = simplified[v + 1] * itemSize + yOffset;
+            }
+            loops.add(simplified);
+        }
+        return loops;
+    }
+
+    private static boolean isOcean(int[][] biomeMap, int i, int j) {
+        int x = i - 1;
+        int y = j - 1;
+        return x >= 0 && x < MAP_SIZE && y >= 0 && y < MAP_SIZE && biomeMap[x][y] == TileType.OCEAN.ordinal();
+    }
+
+    private static int side(int i, int j, int k) {
+        switch (k) {
+            case 0: return horizontal(i, j);         // bottom
+            case 1: return vertical(i + 1, j);       // right
+            case 2: return horizontal(i, j + 1);     // top
+            default: return vertical(i, j);          // left
+        }
+    }
+
+    private static int horizontal(int i, int j) {
+        return i * SAMPLES + j;
+    }
+
+    private static int vertical(int i, int j) {
+        return HORIZONTAL_POINTS + i * (SAMPLES - 1) + j;
+    }
+
+    // point positions in tiles, sample (i, j) is the centre of tile (i - 1, j - 1) at (i - 0.5, j - 0.5)
+    private static float pointX(int point) {
+        if (point < HORIZONTAL_POINTS) return point / SAMPLES;
+        return (point - HORIZONTAL_POINTS) / (SAMPLES - 1) - 0.5f;
+    }
+
+    private static float pointY(int point) {
+        if (point < HORIZONTAL_POINTS) return point % SAMPLES - 0.5f;
+        return (point - HORIZONTAL_POINTS) % (SAMPLES - 1);
+    }
+
+    // Douglas-Peucker on a closed loop, split at the first point and the point farthest from it
+    static float[] simplify(FloatArray loop) {
+        int count = loop.size / 2;
+        if (count < 4) return loop.toArray();
+
+        float[] points = new float[loop.size + 2]; // the first point again at the end to close the loop
+        System.arraycopy(loop.items, 0, points, 0, loop.size);
+        points[loop.size] = loop.items[0];
+        points[loop.size + 1] = loop.items[1];
+
+        int farthest = 0;
+        float farthestDistance = -1;
+        for (int p = 1; p < count; p++) {
+            float dx = points[p * 2] - points[0];
+            float dy = points[p * 2 + 1] - points[1];
+            float distance = dx * dx + dy * dy;
+            if (distance > farthestDistance) {
+                farthestDistance = distance;
+                farthest = p;
+            }
+        }
+
+        boolean[] keep = new boolean[count + 1];
+        keep[0] = keep[farthest] = keep[count] = true;
+        IntArray ranges = new IntArray();
+        ranges.add(0, farthest, farthest, count);
+        while (ranges.size > 0) {
+            int last = ranges.pop();
+            int first = ranges.pop();
+            float ax = points[first * 2], ay = points[first * 2 + 1];
+            float bx = points[last * 2], by = points[last * 2 + 1];
+            float length = (float) Math.sqrt((bx - ax) * (bx - ax) + (by - ay) * (by - ay));
+
+            int split = -1;
+            float splitDistance = TOLERANCE;
+            for (int p = first + 1; p < last; p++) {
+                float px = points[p * 2], py = points[p * 2 + 1];
+                float distance = length == 0
+                    ? (float) Math.sqrt((px - ax) * (px - ax) + (py - ay) * (py - ay))
+                    : Math.abs((bx - ax) * (ay - py) - (ax - px) * (by - ay)) / length;
+                if (distance > splitDistance) {
+                    splitDistance = distance;
+                    split = p;
+                }
+            }
+            if (split >= 0) {
+                keep[split] = true;
+                ranges.add(first, split, split, last);
+            }
+        }
+
+        FloatArray simplified = new FloatArray();
+        for (int p = 0; p < count; p++) {
+            if (keep[p]) simplified.add(points[p * 2], points[p * 2 + 1]);
+        }
+        return simplified.toArray();
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.ai.pfa.Heuristic;
+
+// A* heuristic for the WorldGraph in tiles: diagonal steps for the shorter axis, straight ones for the rest,
+// as if every cell were road so it never overestimates the weighted step costs.
+public class OctileDistance implements Heuristic<Integer> {
+    private final WorldGraph graph;
+
+    public OctileDistance(WorldGraph graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public float estimate(Integer node, Integer endNode) {
+        return distance(node, endNode);
+    }
+
+    public float distance(int fromCell, int toCell) {
+        int dx = Math.abs(graph.getRelativeX(fromCell) - graph.getRelativeX(toCell));
+        int dy = Math.abs(graph.getRelativeY(fromCell) - graph.getRelativeY(toCell));
+        int length = Math.max(dx, dy) * WorldGraph.CARDINAL_COST + Math.min(dx, dy) * (WorldGraph.DIAGONAL_COST - WorldGraph.CARDINAL_COST);
+        return length * WorldGraph.MIN_COST_FACTOR / WorldGraph.CARDINAL_COST;
+    }
+}
@@ -0,0 +1,198 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Queue;
+import com.badlogic.gdx.utils.TimeUtils;
+
+// Path searches of the tanks that look for their own path, queued and run a slice of every frame.
+// One GridPathFinder serves every search so its node records for the whole grid are only allocated once,
+// a search that does not fit in the frame's budget is interrupted and picks up where it stopped next frame.
+// Requests keep world positions and are resolved to cells when their search starts. When the grid moves or
+// changes during a search it starts over, the cells it had visited may stand for other tiles by then.
+// Searches over more than HIERARCHY_DISTANCE tiles go over the clusters of the HierarchicalGraph instead, they are
+// short enough to run in one go and only give the first part of the way, the tank searches again as it follows it.
+// Requests that ask for jump point search also run in one go, on the JumpPointFinder instead of the interrupted A*.
+public class PathfindingService {
+    public static final int HIERARCHY_DISTANCE = 3 * HierarchicalGraph.CLUSTER_SIZE;
+    private final WorldGraph graph;
+    private final GridPathFinder pathFinder;
+    private final HierarchicalGraph hierarchy;
+    private final JumpPointFinder jumpPointFinder;
+    private final Heuristic<Integer> heuristic;
+    private final Queue<Request> queue = new Queue<>();
+    private Request current; // the search in progress, null when idle
+    private int currentVersion; // graph version the current search started on
+    private boolean currentHierarchical; // the current search goes over the clusters
+    private float budgetMs = 1f;
+
+    // metrics, counted over the last full second
+    private long secondStart = TimeUtils.nanoTime();
+    private int searches;
+    private float waitMillis;
+    private float maxWaitMillis;
+    private int searchesPerSecond;
+    private float averageWaitMillis;
+    private float lastMaxWaitMillis;
+
+    public PathfindingService(WorldGraph graph, Heuristic<Integer> heuristic) {
+        this.graph = graph;
+        this.pathFinder = new GridPathFinder(graph);
+        this.hierarchy = new HierarchicalGraph(graph);
+        this.jumpPointFinder = new JumpPointFinder(graph);
+        this.heuristic = heuristic;
+    }
+
+    // queues a search from start to goal in world units, a request already waiting is left as it is
+    public void request(Request request, Vector2 start, Vector2 goal) {
+        if (request.queued) return;
+        request.start.set(start);
+        request.goal.set(goal);
+        request.queued = true;
+        request.done = false;
+        request.queuedNanos = TimeUtils.nanoTime();
+        queue.addLast(request);
+    }
+
+    // drops a request of a tank that is gone
+    public void cancel(Request request) {
+        if (!request.queued) return;
+        request.queued = false;
+        if (current == request) {
+            current = null; // the finder starts over with the next request
+        } else {
+            queue.removeValue(request, true);
+        }
+    }
+
+    // runs the queued searches until this frame's budget is spent
+    public void update() {
+        long deadline = TimeUtils.nanoTime() + (long) (budgetMs * 1000000);
+        while (true) {
+            if (current == null || currentVersion != graph.getVersion()) {
+                if (current == null) {
+                    if (queue.isEmpty()) break;
+                    current = queue.removeFirst();
+                }
+                if (!begin(current)) {
+                    finish(false);
+                    continue;
+                }
+            }
+            long timeToRun = deadline - TimeUtils.nanoTime();
+            if (timeToRun <= 0) break;
+            if (currentHierarchical) {
+                boolean found = hierarchy.findPath(current.startNode, current.endNode, current.resultPath);
+                current.partial = found && hierarchy.isLastPathPartial();
+                finish(found);
+                continue;
+            }
+            if (current.jumpPoint) {
+                finish(jumpPointFinder.findPath(current.startNode, current.endNode, current.resultPath));
+                continue;
+            }
+            if (!pathFinder.search(current, timeToRun)) break; // interrupted, continues next frame
+            finish(current.pathFound);
+        }
+        updateMetrics();
+    }
+
+    // resolves the positions of the current request, false when either is outside the window or not walkable
+    private boolean begin(Request request) {
+        request.startNode = graph.getNodeAt(request.start);
+        request.endNode = graph.getNodeAt(request.goal);
+        if (request.startNode == null || request.endNode == null) return false;
+        request.heuristic = heuristic;
+        request.resultPath.clear();
+        request.partial = false;
+        currentVersion = graph.getVersion();
+        currentHierarchical = isFar(request.startNode, request.endNode);
+        if (!currentHierarchical && !request.jumpPoint) {
+            request.changeStatus(PathFinderRequest.SEARCH_INITIALIZED); // tells the finder to start a new search
+        }
+        return true;
+    }
+
+    private boolean isFar(int fromCell, int toCell) {
+        int dx = Math.abs(graph.getRelativeX(fromCell) - graph.getRelativeX(toCell));
+        int dy = Math.abs(graph.getRelativeY(fromCell) - graph.getRelativeY(toCell));
+        return Math.max(dx, dy) > HIERARCHY_DISTANCE;
+    }
+
+    private void finish(boolean pathFound) {
+        Request request = current;
+        current = null;
+        request.pathFound = pathFound;
+        request.queued = false;
+        request.done = true;
+
+        float waited = (TimeUtils.nanoTime() - request.queuedNanos) / 1000000f;
+        searches++;
+        waitMillis += waited;
+        maxWaitMillis = Math.max(maxWaitMillis, waited);
+    }
+
+    private void updateMetrics() {
+        long now = TimeUtils.nanoTime();
+        if (now - secondStart < 1000000000L) return;
+        searchesPerSecond = searches;
+        averageWaitMillis = searches > 0 ? waitMillis / searches : 0;
+        lastMaxWaitMillis = maxWaitMillis;
+        searches = 0;
+        waitMillis = 0;
+        maxWaitMillis = 0;
+        secondStart = now;
+    }
+
+    public void setBudget(float milliseconds) {
+        budgetMs = milliseconds;
+    }
+
+    // requests waiting, including the one being searched
+    public int getQueueDepth() {
+        return queue.size + (current != null ? 1 : 0);
+    }
+
+    public int getSearchesPerSecond() {
+        return searchesPerSecond;
+    }
+
+    // time from queueing to the finished search, averaged over the last second
+    public float getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public float getMaxWaitMillis() {
+        return lastMaxWaitMillis;
+    }
+
+    // the search of one tank, reused for all of its searches. While a search runs the tank keeps its old path,
+    // once collect returns true resultPath holds the new one when pathFound is set.
+    public static class Request extends PathFinderRequest<Integer> {
+        public final Vector2 start = new Vector2();
+        public final Vector2 goal = new Vector2();
+        public boolean partial; // resultPath stops short of the goal, search again before reaching its end
+        public boolean jumpPoint; // searches within HIERARCHY_DISTANCE use jump point search instead of A*
+        private boolean queued;
+        private boolean done;
+        private long queuedNanos;
+
+        public Request() {
+            resultPath = new DefaultGraphPath<>();
+        }
+
+        // queued or being searched
+        public boolean isPending() {
+            return queued;
+        }
+
+        // true once after the search finished
+        public boolean collect() {
+            if (!done) return false;
+            done = false;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+
+import static io.github.nickolasddiaz.utils.MapGenerator.MAP_SIZE;
+import static io.github.nickolasddiaz.utils.MapGenerator.itemSize;
+
+// Greedy merging of a chunk's tile grid into as few rectangles as it can, so touching decoration tiles
+// become one static sensor instead of one per tile. Road runs are emitted as they are found, they may reach past the chunk.
+// Tiles are taken in scan order, a rectangle first grows up and then sideways while the whole span is set.
+final class RectangleMerger {
+    private RectangleMerger() {
+    }
+
+    // covers every set tile with non overlapping rectangles named name, clears the grid as it goes
+    static void merge(boolean[][] grid, String name, float xOffset, float yOffset, MapObjects out) {
+        for (int x = 0; x < MAP_SIZE; x++) {
+            for (int y = 0; y < MAP_SIZE; y++) {
+                if (!grid[x][y]) continue;
+                int width = 1;
+                int height = 1;
+                while (y + height < MAP_SIZE && grid[x][y + height]) height++;
+                while (x + width < MAP_SIZE && isSet(grid, x + width, y, 1, height)) width++;
+                for (int i = x; i < x + width; i++) {
+                    for (int j = y; j < y + height; j++) {
+                        grid[i][j] = false;
+                    }
+                }
+
+                MapObject object = new RectangleMapObject(x * itemSize + xOffset, y * itemSize + yOffset, width * itemSize, height * itemSize);
+                object.setName(name);
+                out.add(object);
+            }
+        }
+    }
+
+    private static boolean isSet(boolean[][] grid, int x, int y, int width, int height) {
+        for (int i = x; i < x + width; i++) {
+            for (int j = y; j < y + height; j++) {
+                if (!grid[i][j]) return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,119 +1,16 @@
 package io.github.nickolasddiaz.utils;
 
-import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
 
 import java.util.*;
 
 import static io.github.nickolasddiaz.utils.MapGenerator.*;
 
+// Lays out the roads of a chunk with wave function collapse over a TILE_SIZE x TILE_SIZE grid of road cells,
+// then places structures next to the roads and scatters decorations.
+// A cell keeps one constraint per side (ANY, NO or YES) and its domain is the bitmask of the Options allowed by them.
+// One generator lays out one chunk, its random and scratch state are never shared so chunks can be generated in any order or side by side.
 public class TerrainGenerator {
-    class Cell {
-        boolean collapsed;
-        Boolean up;
-        Boolean left;
-        Boolean right;
-        Boolean down;
-        Options selectedOption; // Stores the collapsed option
-
-        public Cell(Boolean top, Boolean left, Boolean right, Boolean bottom) {
-            this.collapsed = false;
-            this.up = top;
-            this.left = left;
-            this.right = right;
-            this.down = bottom;
-            this.selectedOption = null; // Initially not collapsed
-        }
-
-        // Collapse the cell to a single option
-        public void collapse(int biome) {
-            int multiplier;
-            if (!collapsed) {
-                List<Options> validOptions = getValidOptions();
-                if(biome == TileType.DESSERT.ordinal()) multiplier = 3;
-                else if(biome == TileType.WILD_WEST.ordinal()) multiplier = 2;
-                else if(biome == TileType.TUNDRA.ordinal()) multiplier = 3;
-                else if(biome == TileType.PLAINS.ordinal()) multiplier = 5;
-                else if(biome == TileType.OCEAN.ordinal()) {
-                    this.collapsed = true; this.up = false; this.left = false; this.right = false; this.down = false;
-                    return;
-                }
-                else {
-                    multiplier = 1;
-                }
-
-                if (validOptions.isEmpty()) {
-                    return;
-                    //throw new IllegalStateException("No valid options to collapse.");
-                }
-
-                // Weighted random selection
-                int totalWeight = validOptions.stream().mapToInt(option -> {
-                    if (option == Options.HORIZONTAL || option == Options.VERTICAL) {
-                        return option.chance * multiplier;
-                    }
-                    return option.chance;
-                }).sum();
-
-                int randomWeight = random.nextInt(totalWeight);
-                for (Options option : validOptions) {
-                    int adjustedChance = option.chance;
-                    if (option == Options.HORIZONTAL || option == Options.VERTICAL) {
-                        adjustedChance *= multiplier;
-                    }
-
-                    randomWeight -= adjustedChance;
-                    if (randomWeight < 0) {
-                        this.selectedOption = option;
-                        break;
-                    }
-                }
-
-                // Update the cell to the collapsed state
-                this.collapsed = true;
-                this.up = selectedOption.up;
-                this.left = selectedOption.left;
-                this.right = selectedOption.right;
-                this.down = selectedOption.down;
-            }
-        }
-
-        // Get valid options based on current constraints
-        private List<Options> getValidOptions() {
-            List<Options> validOptions = new ArrayList<>();
-            for (Options option : Options.values()) {
-                if ((up == null || option.up.equals(up)) &&
-                    (left == null || option.left.equals(left)) &&
-                    (right == null || option.right.equals(right)) &&
-                    (down == null || option.down.equals(down))) {
-                    validOptions.add(option);
-                }
-            }
-            return validOptions;
-        }
-
-        // Remove options by updating constraints
-        public void removeOptions(Boolean up, Boolean left, Boolean right, Boolean down) {
-            if (collapsed) {
-                return;
-            }
-
-            // Update constraints based on provided values
-            if (up != null) this.up = up;
-            if (left != null) this.left = left;
-            if (right != null) this.right = right;
-            if (down != null) this.down = down;
-        }
-
-        public int getOptionCount() {
-            return getValidOptions().size();
-        }
-
-        public Boolean isUp() { return up; }
-        public Boolean isLeft() { return left; }
-        public Boolean isRight() { return right; }
-        public Boolean isDown() { return down; }
-    }
-
     enum Options {
         CROSS(true, true, true, true, 1),               // ╬
         HORIZONTAL(false, true, true, false, 10),       // ═
@@ -127,304 +24,405 @@ public class TerrainGenerator {
         LEFT_RIGHT_DOWN(false, true, true, true, 1),    // ╦
         LEFT_RIGHT_UP(true, true, true, false, 1);      // ╩
 
-        public final Boolean up;
-        public final Boolean left;
-        public final Boolean right;
-        public final Boolean down;
+        public final boolean up;
+        public final boolean left;
+        public final boolean right;
+        public final boolean down;
         public final int chance;
 
         // Constructor
-        Options(Boolean up, Boolean left, Boolean right, Boolean down, int chance) {
+        Options(boolean up, boolean left, boolean right, boolean down, int chance) {
             this.up = up;
             this.left = left;
             this.right = right;
             this.down = down;
             this.chance = chance;
         }
+
+        boolean connects(int side) {
+            switch (side) {
+                case UP: return up;
+                case LEFT: return left;
+                case RIGHT: return right;
+                default: return down;
+            }
+        }
     }
 
-    Queue<Vector2> Structure_Queue = new LinkedList<>();
-    PriorityQueue<Pair<Integer, Vector2>> Queue = new PriorityQueue<>(Comparator.comparingInt(Pair::getKey));
+    public static final short EMPTY = -1; // terrain value of a tile without terrain
+    private static final TileType[] TILE_TYPES = TileType.values(); // values() copies the array on every call
     public static final int OCEAN = TileType.OCEAN.ordinal();
-    public static final int ROAD = TileType.ROAD.ordinal();
-    public static final int ROAD_CROSSWALK_WIDTH = TileType.ROAD_CROSSWALK_WIDTH.ordinal();
-    public static final int ROAD_CROSSWALK_HEIGHT = TileType.ROAD_CROSSWALK_HEIGHT.ordinal();
+    public static final short ROAD = (short) TileType.ROAD.ordinal();
+    public static final short ROAD_CROSSWALK_WIDTH = (short) TileType.ROAD_CROSSWALK_WIDTH.ordinal();
+    public static final short ROAD_CROSSWALK_HEIGHT = (short) TileType.ROAD_CROSSWALK_HEIGHT.ordinal();
+
+    // sides of a cell and the constraint a side can have
+    private static final int UP = 0, LEFT = 1, RIGHT = 2, DOWN = 3;
+    private static final byte ANY = 0, NO = 1, YES = 2;
+
+    private static final Options[] OPTIONS = Options.values();
+    private static final int CELLS = TILE_SIZE * TILE_SIZE;
+    private static final int MAX_MULTIPLIER = 5;
+    // SIDE_MASKS[side][constraint] options that satisfy the constraint on that side
+    private static final int[][] SIDE_MASKS = new int[4][3];
+    // OPTION_WEIGHTS[multiplier][option] and DOMAIN_WEIGHTS[multiplier][domain] chances with straight roads scaled by the biome multiplier
+    private static final int[][] OPTION_WEIGHTS = new int[MAX_MULTIPLIER + 1][OPTIONS.length];
+    private static final int[][] DOMAIN_WEIGHTS = new int[MAX_MULTIPLIER + 1][1 << OPTIONS.length];
+
+    static {
+        for (int side = 0; side < 4; side++) {
+            SIDE_MASKS[side][ANY] = (1 << OPTIONS.length) - 1;
+            for (Options option : OPTIONS) {
+                SIDE_MASKS[side][option.connects(side) ? YES : NO] |= 1 << option.ordinal();
+            }
+        }
+        for (int multiplier = 1; multiplier <= MAX_MULTIPLIER; multiplier++) {
+            for (Options option : OPTIONS) {
+                boolean straight = option == Options.HORIZONTAL || option == Options.VERTICAL;
+                OPTION_WEIGHTS[multiplier][option.ordinal()] = straight ? option.chance * multiplier : option.chance;
+            }
+            for (int domain = 1; domain < 1 << OPTIONS.length; domain++) {
+                int lowest = Integer.numberOfTrailingZeros(domain);
+                DOMAIN_WEIGHTS[multiplier][domain] = DOMAIN_WEIGHTS[multiplier][domain & (domain - 1)] + OPTION_WEIGHTS[multiplier][lowest];
+            }
+        }
+    }
 
     private final Random random;
-    Cell[][] grid = new Cell[TILE_SIZE][TILE_SIZE];
+    // road cells, indexed x * TILE_SIZE + y
+    private final byte[] sides = new byte[CELLS * 4]; // constraint of each side, cell * 4 + side
+    private final int[] domains = new int[CELLS];
+    private final boolean[] collapsed = new boolean[CELLS];
+    private final EntropyQueue frontier = new EntropyQueue();
+    private final IntArray structureQueue = new IntArray(CELLS);
     private boolean[] isRoadTop = new boolean[TILE_SIZE];
     private boolean[] isRoadBottom = new boolean[TILE_SIZE];
 
 
-    public TerrainGenerator(int seed) {
-        random = new Random(seed);
+    // chunkSeed is MapGenerator.chunkSeed of the chunk to lay out
+    public TerrainGenerator(long chunkSeed) {
+        random = new Random(chunkSeed);
     }
 
-    public Integer[][] generate(int[][] biomeMap, boolean[] top, boolean[] left, boolean[] right, boolean[] down) {
+    // fills TerrainMap (MAP_SIZE * MAP_SIZE tiles, see MapGenerator.tileIndex) with roads, structures and decorations
+    public void generate(short[] TerrainMap, int[][] biomeMap, boolean[] top, boolean[] left, boolean[] right, boolean[] down) {
         isRoadTop = top;
         isRoadBottom = down;
-        grid = new Cell[TILE_SIZE][TILE_SIZE];// Initialize grid with cells that have all possibilities
-        Integer[][] TerrainMap = new Integer[MAP_SIZE][MAP_SIZE];
-        for (int i = 0; i < TILE_SIZE; i++) { // TILE_SIZE = MAP_SIZE/ROAD_SIZE
-            for (int j = 0; j < TILE_SIZE; j++) {
-                grid[i][j] = new Cell(null, null, null, null);
-            }
-        }
+        Arrays.fill(sides, ANY); // every cell starts with all possibilities
+        Arrays.fill(domains, SIDE_MASKS[UP][ANY]);
+        Arrays.fill(collapsed, false);
+        frontier.clear();
+        structureQueue.clear();
+        Arrays.fill(TerrainMap, EMPTY);
+
         for(int i = 0; i < TILE_SIZE; i++){
             if(top[i]){
                 roadUp(i, TILE_SIZE-1, TerrainMap, biomeMap);
-                grid[i][TILE_SIZE-1].down = true;
-                grid[i][TILE_SIZE-1].selectedOption = Options.VERTICAL;
-                grid[i][TILE_SIZE-1].collapsed = true;
-                insertRoad(i, TILE_SIZE-1, grid[i][TILE_SIZE-1].isUp(), grid[i][TILE_SIZE-1].isLeft(), grid[i][TILE_SIZE-1].isRight(), grid[i][TILE_SIZE-1].isDown(), TerrainMap, biomeMap);
-                getNewCells(i, TILE_SIZE-1);
+                startRoad(cell(i, TILE_SIZE-1), DOWN, TerrainMap, biomeMap);
             }
             if(left[i]){
                 roadLeft(0, i, TerrainMap, biomeMap); //make sure the border between the edges are filled
-                grid[0][i].right = true;
-                grid[0][i].selectedOption = Options.HORIZONTAL;
-                grid[0][i].collapsed = true;
-                insertRoad(0, i, grid[0][i].isUp(), grid[0][i].isLeft(), grid[0][i].isRight(), grid[0][i].isDown(), TerrainMap, biomeMap);
-                getNewCells(0, i);
+                startRoad(cell(0, i), RIGHT, TerrainMap, biomeMap);
             }
             if(right[i]){
                 roadRight(TILE_SIZE-1, i, TerrainMap, biomeMap); //make sure the border between the edges are filled
-                grid[TILE_SIZE-1][i].left = true;
-                grid[TILE_SIZE-1][i].selectedOption = Options.HORIZONTAL;
-                grid[TILE_SIZE-1][i].collapsed = true;
-                insertRoad(TILE_SIZE-1, i, grid[TILE_SIZE-1][i].isUp(), grid[TILE_SIZE-1][i].isLeft(), grid[TILE_SIZE-1][i].isRight(), grid[TILE_SIZE-1][i].isDown(), TerrainMap, biomeMap);
-                getNewCells(TILE_SIZE-1, i);
+                startRoad(cell(TILE_SIZE-1, i), LEFT, TerrainMap, biomeMap);
             }
             if(down[i]){
                 roadDown(i, 0, TerrainMap, biomeMap);
-                grid[i][0].up = true;
-                grid[i][0].selectedOption = Options.VERTICAL;
-                grid[i][0].collapsed = true;
-                insertRoad(i, 0, grid[i][0].isUp(), grid[i][0].isLeft(), grid[i][0].isRight(), grid[i][0].isDown(), TerrainMap, biomeMap);
-                getNewCells(i, 0);
+                startRoad(cell(i, 0), UP, TerrainMap, biomeMap);
             }
         }
 
-        while (!Queue.isEmpty()) {// collapsing cells
-            Pair<Integer, Vector2> pair = Queue.poll();
-            int x = (int) pair.getValue().x;
-            int y = (int) pair.getValue().y;
+        while (!frontier.isEmpty()) {// collapsing cells, fewest options first
+            int cell = frontier.poll();
+            int x = cell / TILE_SIZE;
+            int y = cell % TILE_SIZE;
 
-            if (!grid[x][y].collapsed) {
-                if (biomeMap[x * ROAD_SIZE + ROAD_SIZE/2][y * ROAD_SIZE + ROAD_SIZE/2] == OCEAN ) {
-                    grid[x][y].collapse(OCEAN);
-                } else {
-                    grid[x][y].collapse(biomeMap[x * ROAD_SIZE + ROAD_SIZE / 2][y * ROAD_SIZE + ROAD_SIZE / 2]);
+            if (!collapsed[cell]) {
+                int biome = biomeMap[x * ROAD_SIZE + ROAD_SIZE/2][y * ROAD_SIZE + ROAD_SIZE/2];
+                collapse(cell, biome);
+                if (biome != OCEAN) {
                     placeStructure(x * ROAD_SIZE, y * ROAD_SIZE, biomeMap, TerrainMap);
-                    insertRoad(x, y, grid[x][y].isUp(), grid[x][y].isLeft(), grid[x][y].isRight(), grid[x][y].isDown(), TerrainMap, biomeMap);
+                    insertRoad(cell, TerrainMap, biomeMap);
                     getNewCells(x, y);
-                    Structure_Queue.add(new Vector2(x, y));
+                    structureQueue.add(cell);
                 }
             }
         }
-        while (!Structure_Queue.isEmpty()) {// placing structures
-            Vector2 pair = Structure_Queue.poll();
-            placeStructure((int) pair.x*ROAD_SIZE, (int) pair.y*ROAD_SIZE, biomeMap, TerrainMap);
+        for (int i = 0; i < structureQueue.size; i++) {// placing structures
+            int cell = structureQueue.get(i);
+            placeStructure(cell / TILE_SIZE * ROAD_SIZE, cell % TILE_SIZE * ROAD_SIZE, biomeMap, TerrainMap);
         }
 
         for (int x = 0; x < MAP_SIZE; x++) {// placing decorations
             for (int y = 0; y < MAP_SIZE; y++) {
-                if(TerrainMap[x][y] != null) continue;
+                if(TerrainMap[tileIndex(x, y)] != EMPTY) continue;
                 int biome = biomeMap[x][y];
                 double densityLimit = random.nextDouble(); // random number between 0 and 1 meant for the density of decorations
                 int addition = random.nextInt(3); // random number between 0 and 2 meant for the three options of each decoration for each biome
-                switch (TileType.valueOf(TileType.values()[biome].name())) {
-                    case DESSERT: if (densityLimit < DECORATION_DENSITY * 1) TerrainMap[x][y] = TileType.DESSERT_SHRUB.ordinal() + addition; break;
-                    case WILD_WEST: if (densityLimit < DECORATION_DENSITY * 2) TerrainMap[x][y] = TileType.TUMBLEWEED.ordinal() + addition; break;
-                    case TUNDRA: if (densityLimit < DECORATION_DENSITY * 2) TerrainMap[x][y] = TileType.ICICLE.ordinal() + addition; break;
-                    case PLAINS: if (densityLimit < DECORATION_DENSITY * 4) TerrainMap[x][y] = TileType.PLAIN_TREE.ordinal() + addition; break;
+                switch (TILE_TYPES[biome]) {
+                    case DESSERT: if (densityLimit < DECORATION_DENSITY * 1) TerrainMap[tileIndex(x, y)] = (short) (TileType.DESSERT_SHRUB.ordinal() + addition); break;
+                    case WILD_WEST: if (densityLimit < DECORATION_DENSITY * 2) TerrainMap[tileIndex(x, y)] = (short) (TileType.TUMBLEWEED.ordinal() + addition); break;
+                    case TUNDRA: if (densityLimit < DECORATION_DENSITY * 2) TerrainMap[tileIndex(x, y)] = (short) (TileType.ICICLE.ordinal() + addition); break;
+                    case PLAINS: if (densityLimit < DECORATION_DENSITY * 4) TerrainMap[tileIndex(x, y)] = (short) (TileType.PLAIN_TREE.ordinal() + addition); break;
                 }
             }
         }
+    }
+
+    private static int cell(int x, int y) {
+        return x * TILE_SIZE + y;
+    }
+
+    private boolean connects(int cell, int side) {
+        return sides[cell * 4 + side] == YES;
+    }
+
+    // a road coming in from outside the chunk, the border cell is fixed as collapsed with a road on that side
+    private void startRoad(int cell, int side, short[] TerrainMap, int[][] BiomeMap) {
+        sides[cell * 4 + side] = YES;
+        collapsed[cell] = true;
+        insertRoad(cell, TerrainMap, BiomeMap);
+        getNewCells(cell / TILE_SIZE, cell % TILE_SIZE);
+    }
+
+    // Collapse the cell to a single option picked by weight, ocean cells collapse to no roads
+    private void collapse(int cell, int biome) {
+        if (collapsed[cell]) return;
+        int multiplier;
+        if(biome == TileType.DESSERT.ordinal()) multiplier = 3;
+        else if(biome == TileType.WILD_WEST.ordinal()) multiplier = 2;
+        else if(biome == TileType.TUNDRA.ordinal()) multiplier = 3;
+        else if(biome == TileType.PLAINS.ordinal()) multiplier = 5;
+        else if(biome == OCEAN) {
+            collapsed[cell] = true;
+            Arrays.fill(sides, cell * 4, cell * 4 + 4, NO);
+            return;
+        }
+        else {
+            multiplier = 1;
+        }
+
+        int domain = domains[cell];
+        if (domain == 0) return; // no valid options, the cell stays open
+
+        // Weighted random selection
+        int randomWeight = random.nextInt(DOMAIN_WEIGHTS[multiplier][domain]);
+        for (int options = domain; options != 0; options &= options - 1) {
+            int option = Integer.numberOfTrailingZeros(options);
+            randomWeight -= OPTION_WEIGHTS[multiplier][option];
+            if (randomWeight < 0) {
+                Options selected = OPTIONS[option];
+                sides[cell * 4 + UP] = selected.up ? YES : NO;
+                sides[cell * 4 + LEFT] = selected.left ? YES : NO;
+                sides[cell * 4 + RIGHT] = selected.right ? YES : NO;
+                sides[cell * 4 + DOWN] = selected.down ? YES : NO;
+                break;
+            }
+        }
+        collapsed[cell] = true;
+    }
+
+    // narrows an open cell, a side given as ANY keeps its constraint
+    private void constrain(int cell, byte up, byte left, byte right, byte down) {
+        if (collapsed[cell]) return;
+        if (up != ANY) sides[cell * 4 + UP] = up;
+        if (left != ANY) sides[cell * 4 + LEFT] = left;
+        if (right != ANY) sides[cell * 4 + RIGHT] = right;
+        if (down != ANY) sides[cell * 4 + DOWN] = down;
+        domains[cell] = SIDE_MASKS[UP][sides[cell * 4 + UP]] & SIDE_MASKS[LEFT][sides[cell * 4 + LEFT]]
+            & SIDE_MASKS[RIGHT][sides[cell * 4 + RIGHT]] & SIDE_MASKS[DOWN][sides[cell * 4 + DOWN]];
+    }
 
-        return TerrainMap;
+    private static byte when(boolean condition) {
+        return condition ? YES : NO;
     }
 
-    private void insertRoad(int x, int y, Boolean up, Boolean left, Boolean right, Boolean down, Integer[][] TerrainMap, int[][] BiomeMap){
+    private void insertRoad(int cell, short[] TerrainMap, int[][] BiomeMap){
+        int x = cell / TILE_SIZE;
+        int y = cell % TILE_SIZE;
         /*  01100110    01100110
             01101110 -> 01111110
             01101110 -> 01111110
             01100110    01100110 1 represents the road on if (checkIfOutOfBounds(x,y)){} fixes the problem*/
 
-        if(up != null && up){ roadUp(x, y, TerrainMap, BiomeMap);
+        if(connects(cell, UP)){ roadUp(x, y, TerrainMap, BiomeMap);
             if(checkIfOutOfBounds(x, y+1)) roadDown(x, y+1, TerrainMap, BiomeMap);
         }
-        if(left != null && left){ roadLeft(x, y, TerrainMap, BiomeMap);
+        if(connects(cell, LEFT)){ roadLeft(x, y, TerrainMap, BiomeMap);
             if(checkIfOutOfBounds(x-1, y)) roadRight(x-1, y, TerrainMap, BiomeMap);
         }
-        if(right != null && right){ roadRight(x, y, TerrainMap, BiomeMap);
+        if(connects(cell, RIGHT)){ roadRight(x, y, TerrainMap, BiomeMap);
             if(checkIfOutOfBounds(x+1, y)) roadLeft(x+1, y, TerrainMap, BiomeMap);
         }
-        if(down != null && down){ roadDown(x, y, TerrainMap, BiomeMap);
+        if(connects(cell, DOWN)){ roadDown(x, y, TerrainMap, BiomeMap);
             if(checkIfOutOfBounds(x, y-1))roadUp(x, y-1, TerrainMap, BiomeMap);
         }
 
     }
-    private void roadUp(int x, int y, Integer[][] TerrainMap, int[][] BiomeMap){
+    private void roadUp(int x, int y, short[] TerrainMap, int[][] BiomeMap){
         y *= ROAD_SIZE;
         if(y == MAP_SIZE-ROAD_SIZE && !isRoadTop[x]) return;
         x *= ROAD_SIZE;
-        if(TerrainMap[x+ROAD_SIZE/2][y+ROAD_SIZE/2] != null && TerrainMap[x+ROAD_SIZE/2][y+ROAD_SIZE/2] != TileType.ROAD_RIGHT.ordinal()) {
-            TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2 - 1] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2 - 1][y + ROAD_SIZE / 2] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2 - 1][y + ROAD_SIZE / 2 - 1] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2 + 1] = ROAD_CROSSWALK_HEIGHT;
-            TerrainMap[x + ROAD_SIZE / 2 - 1][y + ROAD_SIZE / 2 + 1] = ROAD_CROSSWALK_HEIGHT;
-            if(TerrainMap[x + ROAD_SIZE / 2 - 2][y + ROAD_SIZE / 2] != null){
-                TerrainMap[x + ROAD_SIZE / 2 - 2][y + ROAD_SIZE / 2] = ROAD_CROSSWALK_WIDTH;
-                TerrainMap[x + ROAD_SIZE / 2 - 2][y + ROAD_SIZE / 2 - 1] = ROAD_CROSSWALK_WIDTH;
+        if(TerrainMap[tileIndex(x+ROAD_SIZE/2, y+ROAD_SIZE/2)] != EMPTY && TerrainMap[tileIndex(x+ROAD_SIZE/2, y+ROAD_SIZE/2)] != TileType.ROAD_RIGHT.ordinal()) {
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2 - 1)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + ROAD_SIZE / 2)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + ROAD_SIZE / 2 - 1)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2 + 1)] = ROAD_CROSSWALK_HEIGHT;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + ROAD_SIZE / 2 + 1)] = ROAD_CROSSWALK_HEIGHT;
+            if(TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 2, y + ROAD_SIZE / 2)] != EMPTY){
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 2, y + ROAD_SIZE / 2)] = ROAD_CROSSWALK_WIDTH;
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 2, y + ROAD_SIZE / 2 - 1)] = ROAD_CROSSWALK_WIDTH;
             }
-            if(TerrainMap[x + ROAD_SIZE / 2 + 1][y + ROAD_SIZE / 2] != null){
-                TerrainMap[x + ROAD_SIZE / 2 + 1][y + ROAD_SIZE / 2] = ROAD_CROSSWALK_WIDTH;
-                TerrainMap[x + ROAD_SIZE / 2 + 1][y + ROAD_SIZE / 2 - 1] = ROAD_CROSSWALK_WIDTH;
+            if(TerrainMap[tileIndex(x + ROAD_SIZE / 2 + 1, y + ROAD_SIZE / 2)] != EMPTY){
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2 + 1, y + ROAD_SIZE / 2)] = ROAD_CROSSWALK_WIDTH;
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2 + 1, y + ROAD_SIZE / 2 - 1)] = ROAD_CROSSWALK_WIDTH;
             }
         }
         for(int i = ROAD_SIZE-1; i > ROAD_SIZE/2-2 ; i--){
-            if(BiomeMap[x+ROAD_SIZE/2][y+i] < OCEAN && BiomeMap[x+ROAD_SIZE/2-1][y+i] < OCEAN && TerrainMap[x+ROAD_SIZE/2][y+i] == null) {
-                TerrainMap[x + ROAD_SIZE / 2][y + i] = TileType.ROAD_RIGHT.ordinal();
-                TerrainMap[x + ROAD_SIZE / 2 - 1][y + i] = TileType.ROAD_LEFT.ordinal();
+            if(BiomeMap[x+ROAD_SIZE/2][y+i] < OCEAN && BiomeMap[x+ROAD_SIZE/2-1][y+i] < OCEAN && TerrainMap[tileIndex(x+ROAD_SIZE/2, y+i)] == EMPTY) {
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + i)] = (short) TileType.ROAD_RIGHT.ordinal();
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + i)] = (short) TileType.ROAD_LEFT.ordinal();
             }
         }
     }
-    private void roadLeft(int x, int y, Integer[][] TerrainMap, int[][] BiomeMap){
+    private void roadLeft(int x, int y, short[] TerrainMap, int[][] BiomeMap){
         x *= ROAD_SIZE; y *= ROAD_SIZE;
-        if(TerrainMap[x+ROAD_SIZE/2][y+ROAD_SIZE/2] != null && TerrainMap[x+ROAD_SIZE/2][y+ROAD_SIZE/2] != TileType.ROAD_TOP.ordinal()) {
-            TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2 - 1] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2 - 1][y + ROAD_SIZE / 2] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2 - 1][y + ROAD_SIZE / 2 - 1] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2 - 2][y + ROAD_SIZE / 2] = ROAD_CROSSWALK_WIDTH;
-            TerrainMap[x + ROAD_SIZE / 2 - 2][y + ROAD_SIZE / 2 - 1] = ROAD_CROSSWALK_WIDTH;
-            if(TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2-2] != null){
-                TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2-2] = ROAD_CROSSWALK_HEIGHT;
-                TerrainMap[x + ROAD_SIZE / 2 - 1][y + ROAD_SIZE / 2-2] = ROAD_CROSSWALK_HEIGHT;
+        if(TerrainMap[tileIndex(x+ROAD_SIZE/2, y+ROAD_SIZE/2)] != EMPTY && TerrainMap[tileIndex(x+ROAD_SIZE/2, y+ROAD_SIZE/2)] != TileType.ROAD_TOP.ordinal()) {
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2 - 1)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + ROAD_SIZE / 2)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + ROAD_SIZE / 2 - 1)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 2, y + ROAD_SIZE / 2)] = ROAD_CROSSWALK_WIDTH;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 2, y + ROAD_SIZE / 2 - 1)] = ROAD_CROSSWALK_WIDTH;
+            if(TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2-2)] != EMPTY){
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2-2)] = ROAD_CROSSWALK_HEIGHT;
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + ROAD_SIZE / 2-2)] = ROAD_CROSSWALK_HEIGHT;
             }
-            if(TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2+1] != null){
-                TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2+1] = ROAD_CROSSWALK_HEIGHT;
-                TerrainMap[x + ROAD_SIZE / 2 - 1][y + ROAD_SIZE / 2+1] = ROAD_CROSSWALK_HEIGHT;
+            if(TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2+1)] != EMPTY){
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2+1)] = ROAD_CROSSWALK_HEIGHT;
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + ROAD_SIZE / 2+1)] = ROAD_CROSSWALK_HEIGHT;
             }
         }
         for(int i = 0; i < ROAD_SIZE/2+1; i++){
-            if(BiomeMap[x+i][y+ROAD_SIZE/2] < OCEAN && BiomeMap[x+i][y+ROAD_SIZE/2-1] < OCEAN && TerrainMap[x+i][y+ROAD_SIZE/2] == null) {
-                TerrainMap[x + i][y + ROAD_SIZE / 2] = TileType.ROAD_TOP.ordinal();
-                TerrainMap[x + i][y + ROAD_SIZE / 2 - 1] = TileType.ROAD_BOTTOM.ordinal();
+            if(BiomeMap[x+i][y+ROAD_SIZE/2] < OCEAN && BiomeMap[x+i][y+ROAD_SIZE/2-1] < OCEAN && TerrainMap[tileIndex(x+i, y+ROAD_SIZE/2)] == EMPTY) {
+                TerrainMap[tileIndex(x + i, y + ROAD_SIZE / 2)] = (short) TileType.ROAD_TOP.ordinal();
+                TerrainMap[tileIndex(x + i, y + ROAD_SIZE / 2 - 1)] = (short) TileType.ROAD_BOTTOM.ordinal();
             }
         }
     }
-    private void roadRight(int x, int y, Integer[][] TerrainMap, int[][] BiomeMap){
+    private void roadRight(int x, int y, short[] TerrainMap, int[][] BiomeMap){
         x *= ROAD_SIZE; y *= ROAD_SIZE;
 
-        if(TerrainMap[x+ROAD_SIZE/2][y+ROAD_SIZE/2] != null && TerrainMap[x+ROAD_SIZE/2][y+ROAD_SIZE/2] != TileType.ROAD_TOP.ordinal()) {
-            TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2 - 1] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2 - 1][y + ROAD_SIZE / 2] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2 - 1][y + ROAD_SIZE / 2 - 1] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2+1][y + ROAD_SIZE / 2] = ROAD_CROSSWALK_WIDTH;
-            TerrainMap[x + ROAD_SIZE / 2+1][y + ROAD_SIZE / 2 - 1] = ROAD_CROSSWALK_WIDTH;
-            if(TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2-2] != null){
-                TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2-2] = ROAD_CROSSWALK_HEIGHT;
-                TerrainMap[x + ROAD_SIZE / 2 - 1][y + ROAD_SIZE / 2-2] = ROAD_CROSSWALK_HEIGHT;
+        if(TerrainMap[tileIndex(x+ROAD_SIZE/2, y+ROAD_SIZE/2)] != EMPTY && TerrainMap[tileIndex(x+ROAD_SIZE/2, y+ROAD_SIZE/2)] != TileType.ROAD_TOP.ordinal()) {
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2 - 1)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + ROAD_SIZE / 2)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + ROAD_SIZE / 2 - 1)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2+1, y + ROAD_SIZE / 2)] = ROAD_CROSSWALK_WIDTH;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2+1, y + ROAD_SIZE / 2 - 1)] = ROAD_CROSSWALK_WIDTH;
+            if(TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2-2)] != EMPTY){
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2-2)] = ROAD_CROSSWALK_HEIGHT;
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + ROAD_SIZE / 2-2)] = ROAD_CROSSWALK_HEIGHT;
             }
-            if(TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2+1] != null){
-                TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2+1] = ROAD_CROSSWALK_HEIGHT;
-                TerrainMap[x + ROAD_SIZE / 2 - 1][y + ROAD_SIZE / 2+1] = ROAD_CROSSWALK_HEIGHT;
+            if(TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2+1)] != EMPTY){
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2+1)] = ROAD_CROSSWALK_HEIGHT;
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + ROAD_SIZE / 2+1)] = ROAD_CROSSWALK_HEIGHT;
             }
         }
         for(int i = ROAD_SIZE-1; i > ROAD_SIZE/2-2 ; i--){
-            if(BiomeMap[x+i][y+ROAD_SIZE/2] != OCEAN && BiomeMap[x+i][y+ROAD_SIZE/2-1] != OCEAN && TerrainMap[x+i][y+ROAD_SIZE/2] == null) {
-                TerrainMap[x + i][y + ROAD_SIZE / 2] = TileType.ROAD_TOP.ordinal();
-                TerrainMap[x + i][y + ROAD_SIZE / 2 - 1] = TileType.ROAD_BOTTOM.ordinal();
+            if(BiomeMap[x+i][y+ROAD_SIZE/2] != OCEAN && BiomeMap[x+i][y+ROAD_SIZE/2-1] != OCEAN && TerrainMap[tileIndex(x+i, y+ROAD_SIZE/2)] == EMPTY) {
+                TerrainMap[tileIndex(x + i, y + ROAD_SIZE / 2)] = (short) TileType.ROAD_TOP.ordinal();
+                TerrainMap[tileIndex(x + i, y + ROAD_SIZE / 2 - 1)] = (short) TileType.ROAD_BOTTOM.ordinal();
             }
         }
 
 
     }
-    private void roadDown(int x, int y, Integer[][] TerrainMap, int[][] BiomeMap){
+    private void roadDown(int x, int y, short[] TerrainMap, int[][] BiomeMap){
         if(y == 0 && !isRoadBottom[x]) return;
         x *= ROAD_SIZE; y *= ROAD_SIZE;
-        if(TerrainMap[x+ROAD_SIZE/2][y+ROAD_SIZE/2] != null && TerrainMap[x+ROAD_SIZE/2][y+ROAD_SIZE/2] != TileType.ROAD_RIGHT.ordinal()) {
-            TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2 - 1] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2 - 1][y + ROAD_SIZE / 2] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2 - 1][y + ROAD_SIZE / 2 - 1] = ROAD;
-            TerrainMap[x + ROAD_SIZE / 2][y + ROAD_SIZE / 2 - 2] = ROAD_CROSSWALK_HEIGHT;
-            TerrainMap[x + ROAD_SIZE / 2 - 1][y + ROAD_SIZE / 2 - 2] = ROAD_CROSSWALK_HEIGHT;
-            if(TerrainMap[x + ROAD_SIZE / 2 - 2][y + ROAD_SIZE / 2] != null){
-                TerrainMap[x + ROAD_SIZE / 2 - 2][y + ROAD_SIZE / 2] = ROAD_CROSSWALK_WIDTH;
-                TerrainMap[x + ROAD_SIZE / 2 - 2][y + ROAD_SIZE / 2 - 1] = ROAD_CROSSWALK_WIDTH;
+        if(TerrainMap[tileIndex(x+ROAD_SIZE/2, y+ROAD_SIZE/2)] != EMPTY && TerrainMap[tileIndex(x+ROAD_SIZE/2, y+ROAD_SIZE/2)] != TileType.ROAD_RIGHT.ordinal()) {
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2 - 1)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + ROAD_SIZE / 2)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + ROAD_SIZE / 2 - 1)] = ROAD;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + ROAD_SIZE / 2 - 2)] = ROAD_CROSSWALK_HEIGHT;
+            TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + ROAD_SIZE / 2 - 2)] = ROAD_CROSSWALK_HEIGHT;
+            if(TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 2, y + ROAD_SIZE / 2)] != EMPTY){
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 2, y + ROAD_SIZE / 2)] = ROAD_CROSSWALK_WIDTH;
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 2, y + ROAD_SIZE / 2 - 1)] = ROAD_CROSSWALK_WIDTH;
             }
-            if(TerrainMap[x + ROAD_SIZE / 2 + 1][y + ROAD_SIZE / 2] != null){
-                TerrainMap[x + ROAD_SIZE / 2 + 1][y + ROAD_SIZE / 2] = ROAD_CROSSWALK_WIDTH;
-                TerrainMap[x + ROAD_SIZE / 2 + 1][y + ROAD_SIZE / 2 - 1] = ROAD_CROSSWALK_WIDTH;
+            if(TerrainMap[tileIndex(x + ROAD_SIZE / 2 + 1, y + ROAD_SIZE / 2)] != EMPTY){
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2 + 1, y + ROAD_SIZE / 2)] = ROAD_CROSSWALK_WIDTH;
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2 + 1, y + ROAD_SIZE / 2 - 1)] = ROAD_CROSSWALK_WIDTH;
             }
         }
         for(int i = 0; i < ROAD_SIZE/2+1; i++){
-            if(BiomeMap[x+ROAD_SIZE/2][y+i] < OCEAN && BiomeMap[x+ROAD_SIZE/2-1][y+i] < OCEAN && TerrainMap[x+ROAD_SIZE/2][y+i] == null) {
-                TerrainMap[x + ROAD_SIZE / 2][y + i] = TileType.ROAD_RIGHT.ordinal();
-                TerrainMap[x + ROAD_SIZE / 2 - 1][y + i] = TileType.ROAD_LEFT.ordinal();
+            if(BiomeMap[x+ROAD_SIZE/2][y+i] < OCEAN && BiomeMap[x+ROAD_SIZE/2-1][y+i] < OCEAN && TerrainMap[tileIndex(x+ROAD_SIZE/2, y+i)] == EMPTY) {
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2, y + i)] = (short) TileType.ROAD_RIGHT.ordinal();
+                TerrainMap[tileIndex(x + ROAD_SIZE / 2 - 1, y + i)] = (short) TileType.ROAD_LEFT.ordinal();
             }
         }
     }
 
     private void getNewCells(int x, int y) {
-        checkAndAddCell(x, y + 1, grid[x][y].isUp(), null, null, null, true);     // Up
-        checkAndAddCell(x, y - 1, grid[x][y].isDown(), true, null, null, null);   // Down
-        checkAndAddCell(x - 1, y, grid[x][y].isLeft(), null, null, true,null);   // Left
-        checkAndAddCell(x + 1, y, grid[x][y].isRight(), null, true, null,null);  // Right
+        int cell = cell(x, y);
+        checkAndAddCell(x, y + 1, connects(cell, UP), ANY, ANY, ANY, YES);     // Up
+        checkAndAddCell(x, y - 1, connects(cell, DOWN), YES, ANY, ANY, ANY);   // Down
+        checkAndAddCell(x - 1, y, connects(cell, LEFT), ANY, ANY, YES, ANY);   // Left
+        checkAndAddCell(x + 1, y, connects(cell, RIGHT), ANY, YES, ANY, ANY);  // Right
     }
 
-    private void checkAndAddCell(int x, int y, Boolean sourceConnection, Boolean up, Boolean left, Boolean right, Boolean down) {
-        if (checkIfOutOfBounds(x, y) && !grid[x][y].collapsed && sourceConnection != null && sourceConnection) {
+    private void checkAndAddCell(int x, int y, boolean sourceConnection, byte up, byte left, byte right, byte down) {
+        if (checkIfOutOfBounds(x, y) && !collapsed[cell(x, y)] && sourceConnection) {
+            int cell = cell(x, y);
             // Handle corner cases specifically
             if ((x == 0 && y == 0) || (x == 0 && y == TILE_SIZE - 1) ||
                 (x == TILE_SIZE - 1 && y == 0) || (x == TILE_SIZE - 1 && y == TILE_SIZE - 1)) {
                 // For corners, ensure at least two connections are possible
-                grid[x][y].removeOptions(
-                    (x == 0 && y == TILE_SIZE - 1) || (x == TILE_SIZE - 1 && y == TILE_SIZE - 1), // up
-                    x == 0, // left
-                    x == TILE_SIZE - 1, // right
-                    (x == 0 && y == 0) || (x == TILE_SIZE - 1 && y == 0) // down
+                constrain(cell,
+                    when((x == 0 && y == TILE_SIZE - 1) || (x == TILE_SIZE - 1 && y == TILE_SIZE - 1)), // up
+                    when(x == 0), // left
+                    when(x == TILE_SIZE - 1), // right
+                    when((x == 0 && y == 0) || (x == TILE_SIZE - 1 && y == 0)) // down
                 );
-                Queue.add(Pair.of(grid[x][y].getOptionCount(), new Vector2(x, y)));
+                frontier.add(cell, Integer.bitCount(domains[cell]));
                 return;
             }
 
             // Handle edge cases (non-corner edges)
             if (x <= 1 || x >= TILE_SIZE - 2) {
-                grid[x][y].removeOptions(
-                    y >= TILE_SIZE / 2,
-                    (x >= TILE_SIZE / 2) ? null : false,
-                    (x >= TILE_SIZE / 2) ? false : null,
-                    y <= TILE_SIZE / 2
+                constrain(cell,
+                    when(y >= TILE_SIZE / 2),
+                    (x >= TILE_SIZE / 2) ? ANY : NO,
+                    (x >= TILE_SIZE / 2) ? NO : ANY,
+                    when(y <= TILE_SIZE / 2)
                 );
-                Queue.add(Pair.of(grid[x][y].getOptionCount(), new Vector2(x, y)));
+                frontier.add(cell, Integer.bitCount(domains[cell]));
                 return;
             }
 
             if (y <= 1 || y >= TILE_SIZE - 2) {
-                grid[x][y].removeOptions(
-                    (y >= TILE_SIZE / 2) ? false : null,
-                    x <= TILE_SIZE / 2,
-                    x >= TILE_SIZE / 2,
-                    (y >= TILE_SIZE / 2) ? null : false
+                constrain(cell,
+                    (y >= TILE_SIZE / 2) ? NO : ANY,
+                    when(x <= TILE_SIZE / 2),
+                    when(x >= TILE_SIZE / 2),
+                    (y >= TILE_SIZE / 2) ? ANY : NO
                 );
-                Queue.add(Pair.of(grid[x][y].getOptionCount(), new Vector2(x, y)));
+                frontier.add(cell, Integer.bitCount(domains[cell]));
                 return;
             }
 
             // For interior cells
-            grid[x][y].removeOptions(up, left, right, down);
-            Queue.add(Pair.of(grid[x][y].getOptionCount(), new Vector2(x, y)));
+            constrain(cell, up, left, right, down);
+            frontier.add(cell, Integer.bitCount(domains[cell]));
         }
     }
 
-    private void placeStructure(int x, int y, int[][] biomeMap, Integer[][] TerrainMap){
+    private void placeStructure(int x, int y, int[][] biomeMap, short[] TerrainMap){
         if(random.nextInt(3) == 0) return; // one third chance of placing a structure
         if(y > MAP_SIZE -5) return;
         int start_x = x - ROAD_SIZE/4;
@@ -433,7 +431,7 @@ public class TerrainGenerator {
         int start_y = y + ROAD_SIZE/2 +1;
         int end_y = start_y + 3;
 
-        if(TerrainMap[x+1][start_y-1] == null)  return; // if the structure is on a road
+        if(TerrainMap[tileIndex(x+1, start_y-1)] == EMPTY)  return; // if the structure is on a road
         int biome = biomeMap[x][y];
         if(biome >= OCEAN) return; // if the biome is a decoration or structure or terrain
         for(int i = start_x; i < end_x; i++){
@@ -442,7 +440,7 @@ public class TerrainGenerator {
             }
         }
         int structure;
-        switch (TileType.valueOf(TileType.values()[biome].name())){
+        switch (TILE_TYPES[biome]){
             case DESSERT: structure = TileType.DESSERT_BUILDING1.ordinal() + random.nextInt(3) * 12; break;
             case WILD_WEST: structure = TileType.WILD_WEST_BUILDING1.ordinal() + random.nextInt(3) * 12; break;
             case TUNDRA: structure = TileType.TUNDRA_BUILDING1.ordinal() + random.nextInt(3) * 12; break;
@@ -451,7 +449,7 @@ public class TerrainGenerator {
 
         for (int j = end_y - 1; j >= start_y; j--) {
             for (int i = start_x; i < end_x-1; i++) {
-                TerrainMap[i][j] = structure;
+                TerrainMap[tileIndex(i, j)] = (short) structure;
                 structure++;
             }
         }
@@ -461,27 +459,43 @@ public class TerrainGenerator {
         return x >= 0 && x < TILE_SIZE && y >= 0 && y < TILE_SIZE;
     }
 
-    public static class Pair<K, V> {
-        private final K key;
-        private final V value;
+    // Bucket queue of cells keyed by their option count when they were added, 0 to OPTIONS.length.
+    // The lowest count comes out first and equal counts in the order they were added.
+    // A cell can be added several times, the later entries are skipped once it is collapsed.
+    private static final class EntropyQueue {
+        private final IntArray[] buckets = new IntArray[OPTIONS.length + 1];
+        private final int[] heads = new int[OPTIONS.length + 1];
+        private int size = 0;
 
-        public Pair(K key, V value) {
-            this.key = key;
-            this.value = value;
+        EntropyQueue() {
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new IntArray(CELLS);
         }
 
-        public static <K, V> Pair<K, V> of(K key, V value) {
-            return new Pair<>(key, value);
+        void add(int cell, int entropy) {
+            buckets[entropy].add(cell);
+            size++;
         }
 
-        public K getKey() {
-            return key;
+        boolean isEmpty() {
+            return size == 0;
         }
 
-        public V getValue() {
-            return value;
+        int poll() {
+            for (int entropy = 0; ; entropy++) {
+                IntArray bucket = buckets[entropy];
+                if (heads[entropy] < bucket.size) {
+                    size--;
+                    return bucket.get(heads[entropy]++);
+                }
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i].clear();
+                heads[i] = 0;
+            }
+            size = 0;
         }
     }
 }
-
-
@@ -0,0 +1,31 @@
+package io.github.nickolasddiaz.utils;
+
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+
+// One prebuilt cell and tile for every TileType, shared by the layers of every chunk.
+// Layers only hold references to these, so a chunk's tile layers cost no more than their cell arrays.
+// The cells are never flipped or rotated, clearing a tile in a layer just sets its slot to null.
+public final class TileCells {
+    private final Cell[] cells;
+
+    // a type without a region in the atlas is drawn as ocean
+    public TileCells(TextureAtlas atlas) {
+        TileType[] types = TileType.values();
+        TextureRegion ocean = atlas.findRegion(TileType.OCEAN.name());
+        cells = new Cell[types.length];
+        for (TileType type : types) {
+            TextureRegion region = atlas.findRegion(type.name());
+            Cell cell = new Cell();
+            cell.setTile(new StaticTiledMapTile(region != null ? region : ocean));
+            cells[type.ordinal()] = cell;
+        }
+    }
+
+    // the cell of a TileType ordinal, unknown values fall back to ocean
+    public Cell get(int type) {
+        return type >= 0 && type < cells.length ? cells[type] : cells[TileType.OCEAN.ordinal()];
+    }
+}
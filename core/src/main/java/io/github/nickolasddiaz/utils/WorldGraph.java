@@ -1,96 +1,318 @@
 package io.github.nickolasddiaz.utils;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.ai.pfa.Connection;
-import com.badlogic.gdx.ai.pfa.DefaultConnection;
 import com.badlogic.gdx.ai.pfa.indexed.IndexedGraph;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 
-import static io.github.nickolasddiaz.utils.MapGenerator.ALL_CHUNK_SIZE; // unit of three chunk length 240
+import static io.github.nickolasddiaz.utils.MapGenerator.*; // ALL_CHUNK_SIZE unit of three chunk length 240
+import static io.github.nickolasddiaz.utils.TerrainGenerator.EMPTY;
 
+// Navigation grid of the 3x3 loaded chunks stored as a ring buffer (toroidal).
+// A tile lives at (tile mod 240) in both axes, so when the window moves by a chunk only the chunks that entered
+// are rewritten and the rest of the grid stays where it is.
+// Nodes are cell indices (x * 240 + y of the wrapped position) and walkability is a packed bitset,
+// the 8-way neighbours are derived when the path finder asks for them instead of being stored per node.
+// A step costs its length (octile, in tenths of a tile) times the weight of the two cells it joins. Cells are weighed
+// by how long a tank takes to cross them, from the road bonus and bush penalty of EntityStats.speedMultiplier.
+public class WorldGraph implements IndexedGraph<Integer> {
+    public static final int NODE_COUNT = ALL_CHUNK_SIZE * ALL_CHUNK_SIZE;
+    // neighbours come in this order: up, right, down, left, then up right, down right, up left, down left
+    public static final int DIRECTION_COUNT = 8;
+    public static final int CARDINAL_COST = 10; // one tile
+    public static final int DIAGONAL_COST = 14; // 10 * sqrt(2)
 
-public class WorldGraph implements IndexedGraph<GraphNode> {
-    private final GraphNode[][] nodes;
-    private final Vector2 chunkPosition;
+    // terrain of a cell, the bits index WEIGHTS
+    private static final int ROAD = 1;
+    private static final int BUSH = 2;
+    private static final int NORMAL_WEIGHT = 10;
+    private static final int[] WEIGHTS = new int[4]; // NORMAL_WEIGHT divided by the speed multiplier
+    private static final int[] STEP_COSTS = new int[2 * 4 * 4]; // by diagonal, from terrain and to terrain
+    static {
+        for (int terrain = 0; terrain < WEIGHTS.length; terrain++) {
+            float speed = EntityStats.speedMultiplier((terrain & ROAD) != 0, (terrain & BUSH) != 0);
+            WEIGHTS[terrain] = Math.round(NORMAL_WEIGHT / speed);
+        }
+        for (int from = 0; from < 4; from++) {
+            for (int to = 0; to < 4; to++) {
+                STEP_COSTS[from << 2 | to] = stepCost(CARDINAL_COST, from, to);
+                STEP_COSTS[16 | from << 2 | to] = stepCost(DIAGONAL_COST, from, to);
+            }
+        }
+    }
+    // the cheapest a tile can be crossed for, heuristics scale the distance by this to never overestimate
+    public static final float MIN_COST_FACTOR = WEIGHTS[ROAD] / (float) NORMAL_WEIGHT;
+    public static final int MAX_STEP_COST = stepCost(DIAGONAL_COST, BUSH, BUSH);
+
+    private final int[] walkable = new int[(NODE_COUNT + 31) / 32]; // int words, longs are emulated on the web backend
+    private final byte[] terrain = new byte[NODE_COUNT]; // ROAD and BUSH bits
+    private final Integer[] handles = new Integer[NODE_COUNT]; // interned node objects, filled as they are used
+    private int originX = Integer.MIN_VALUE; // tile coordinate of the lower left corner of the window
+    private int originY = Integer.MIN_VALUE;
+    private int wrappedOriginX; // where the lower left corner sits in the ring buffer
+    private int wrappedOriginY;
+    private int version = 0; // changes whenever walkability or the window changes
+    private final int[] chunkVersions = new int[3 * 3]; // per chunk slot of the ring buffer, changes when the slot is written
+
+    // getConnections hands out the same array and the same edge per direction every call, they hold until the next call.
+    // GridPathFinder keeps the cell each node was reached from in its own records instead of the edge,
+    // a finder that keeps the edges themselves like IndexedAStarPathFinder would see them change.
+    private final Array<Connection<Integer>> connections = new Array<>(DIRECTION_COUNT);
+    private final int[] neighbours = new int[DIRECTION_COUNT];
+    private final Edge[] edges = new Edge[DIRECTION_COUNT];
+
+    public WorldGraph() {
+        for (int i = 0; i < DIRECTION_COUNT; i++) edges[i] = new Edge();
+    }
 
-    public WorldGraph(boolean[][] walkableGrid, Vector2 chunkPosition) {
-        this.nodes = new GraphNode[ALL_CHUNK_SIZE][ALL_CHUNK_SIZE];
-        this.chunkPosition = chunkPosition;
+    // moves the window to be centered on the chunk, the chunks that entered are cleared to walkable until setChunk fills them
+    public void setCenter(int chunkX, int chunkY) {
+        int newOriginX = (chunkX - 1) * MAP_SIZE;
+        int newOriginY = (chunkY - 1) * MAP_SIZE;
+        if (newOriginX == originX && newOriginY == originY) return;
 
-        // Create nodes for walkable areas
-        for (int x = 0; x < ALL_CHUNK_SIZE; x++) {
-            for (int y = 0; y < ALL_CHUNK_SIZE; y++) {
-                if (walkableGrid[x][y]) {
-                    nodes[x][y] = new GraphNode(new Vector2(x, y));
+        int oldOriginX = originX;
+        int oldOriginY = originY;
+        originX = newOriginX;
+        originY = newOriginY;
+        wrappedOriginX = wrap(newOriginX);
+        wrappedOriginY = wrap(newOriginY);
+        version++;
+
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                int tileX = newOriginX + x * MAP_SIZE;
+                int tileY = newOriginY + y * MAP_SIZE;
+                if (oldOriginX == Integer.MIN_VALUE || !isInWindow(tileX, tileY, oldOriginX, oldOriginY)) {
+                    writeChunk(tileX, tileY, null, null);
                 }
             }
         }
+    }
+
+    // writes the non-walkable grid and the roads and bushes of the terrain of an active chunk,
+    // ignored when the chunk is outside the window
+    public void setChunk(int chunkX, int chunkY, boolean[][] notWalkableGrid, short[] terrainMap) {
+        int tileX = chunkX * MAP_SIZE;
+        int tileY = chunkY * MAP_SIZE;
+        if (!isInWindow(tileX, tileY, originX, originY)) return;
+        writeChunk(tileX, tileY, notWalkableGrid, terrainMap);
+        version++;
+    }
+
+    // anything derived from the grid is outdated once this changes
+    public int getVersion() {
+        return version;
+    }
+
+    // same for one chunk slot, slot x and y are the wrapped tile position divided by MAP_SIZE
+    public int getChunkVersion(int slotX, int slotY) {
+        return chunkVersions[slotX * 3 + slotY];
+    }
 
-        // Create connections between nodes
-        for (int x = 0; x < ALL_CHUNK_SIZE; x++) {
-            for (int y = 0; y < ALL_CHUNK_SIZE; y++) {
-                if (nodes[x][y] != null) {
-                    createNodeConnections(x, y);
+    private void writeChunk(int tileX, int tileY, boolean[][] notWalkableGrid, short[] terrainMap) {
+        int startX = wrap(tileX);
+        int startY = wrap(tileY);
+        chunkVersions[startX / MAP_SIZE * 3 + startY / MAP_SIZE]++;
+        for (int x = 0; x < MAP_SIZE; x++) {
+            for (int y = 0; y < MAP_SIZE; y++) {
+                int cell = (startX + x) * ALL_CHUNK_SIZE + startY + y;
+                if (notWalkableGrid == null || !notWalkableGrid[x][y]) {
+                    walkable[cell >>> 5] |= 1 << cell;
+                } else {
+                    walkable[cell >>> 5] &= ~(1 << cell);
                 }
+                terrain[cell] = terrainMap == null ? 0 : terrainOf(terrainMap[tileIndex(x, y)]);
             }
         }
     }
 
-    private void createNodeConnections(int x, int y) {
-        // Define possible movement directions (8-way movement)
-        int[][] directions = {
-            {0, 1}, {1, 0}, {0, -1}, {-1, 0},  // Cardinal
-            {1, 1}, {1, -1}, {-1, 1}, {-1, -1} // Diagonal
-        };
+    private static byte terrainOf(int type) {
+        if (type == EMPTY) return 0;
+        if (type >= TileType.ROAD_LEFT.ordinal()) return ROAD;
+        if (type >= TileType.PLAIN_TREE.ordinal() && type <= TileType.TUNDRA_ROCK.ordinal()) return BUSH; // decorations
+        return 0;
+    }
 
-        for (int[] dir : directions) {
-            int newX = x + dir[0];
-            int newY = y + dir[1];
+    // cost of the step between two neighbouring cells in the direction from one to the other, the same both ways
+    public int getStepCost(int fromCell, int toCell, int direction) {
+        return STEP_COSTS[(isDiagonal(direction) ? 16 : 0) | terrain[fromCell] << 2 | terrain[toCell]];
+    }
 
-            if (isValidPosition(newX, newY) && nodes[newX][newY] != null) {
-                GraphNode fromNode = nodes[x][y];
-                GraphNode toNode = nodes[newX][newY];
-                fromNode.addConnection(new DefaultConnection<>(fromNode, toNode));
-            }
-        }
+    // half the step in each cell, rounded to the nearest so it stays above length * MIN_COST_FACTOR
+    private static int stepCost(int length, int fromTerrain, int toTerrain) {
+        return (length * (WEIGHTS[fromTerrain] + WEIGHTS[toTerrain]) + NORMAL_WEIGHT) / (2 * NORMAL_WEIGHT);
+    }
+
+    public boolean isWalkable(int cell) {
+        return (walkable[cell >>> 5] & (1 << cell)) != 0;
+    }
+
+    // walkability by position inside the window, 0 to 239 from the lower left corner, false outside
+    public boolean isWalkableAt(int relativeX, int relativeY) {
+        if (!isValidPosition(relativeX, relativeY)) return false;
+        return isWalkable(step(wrappedOriginX, relativeX) * ALL_CHUNK_SIZE + step(wrappedOriginY, relativeY));
+    }
+
+    // cell of a position inside the window, -1 outside
+    public int getCellAt(int relativeX, int relativeY) {
+        if (!isValidPosition(relativeX, relativeY)) return -1;
+        return step(wrappedOriginX, relativeX) * ALL_CHUNK_SIZE + step(wrappedOriginY, relativeY);
+    }
+
+    private static boolean isInWindow(int tileX, int tileY, int originX, int originY) {
+        return tileX >= originX && tileX < originX + ALL_CHUNK_SIZE && tileY >= originY && tileY < originY + ALL_CHUNK_SIZE;
+    }
+
+    private static int wrap(int value) {
+        int wrapped = value % ALL_CHUNK_SIZE;
+        return wrapped < 0 ? wrapped + ALL_CHUNK_SIZE : wrapped;
+    }
+
+    // wrap for a coordinate on the grid moved by at most one grid length
+    private static int step(int value, int delta) {
+        int moved = value + delta;
+        if (moved < 0) return moved + ALL_CHUNK_SIZE;
+        return moved >= ALL_CHUNK_SIZE ? moved - ALL_CHUNK_SIZE : moved;
     }
-    private boolean isValidPosition(int x, int y) {
+
+    private static boolean isValidPosition(int x, int y) {
         return x >= 0 && x < ALL_CHUNK_SIZE && y >= 0 && y < ALL_CHUNK_SIZE;
     }
 
-    public GraphNode getNodeAt(Vector2 pos) {
-        int x = (int) pos.x;
-        int y = (int) pos.y;
+    // position of the cell inside the window, 0 to 239 from the lower left corner
+    public int getRelativeX(int cell) {
+        return wrap(cell / ALL_CHUNK_SIZE - originX);
+    }
+
+    public int getRelativeY(int cell) {
+        return wrap(cell % ALL_CHUNK_SIZE - originY);
+    }
+
+    // world units to the wrapped grid position, positions outside the window stay out of range
+    public Vector2 worldToGrid(Vector2 world) {
+        int relativeX = (int) Math.floor(world.x / itemSize) - originX;
+        int relativeY = (int) Math.floor(world.y / itemSize) - originY;
+        if (!isValidPosition(relativeX, relativeY)) return new Vector2(relativeX, relativeY);
+        return new Vector2(wrap(originX + relativeX), wrap(originY + relativeY));
+    }
+
+    // world units to a cell index, -1 outside the window
+    public int getCell(Vector2 world) {
+        int relativeX = (int) Math.floor(world.x / itemSize) - originX;
+        int relativeY = (int) Math.floor(world.y / itemSize) - originY;
+        if (!isValidPosition(relativeX, relativeY)) return -1;
+        return wrap(originX + relativeX) * ALL_CHUNK_SIZE + wrap(originY + relativeY);
+    }
+
+    // cell index to world units of the lower left corner of the tile
+    public Vector2 cellToWorld(int cell) {
+        return new Vector2((originX + getRelativeX(cell)) * itemSize, (originY + getRelativeY(cell)) * itemSize);
+    }
 
-        if (!isValidPosition(x, y)) {
-            Gdx.app.log("WorldGraph", "Invalid position: " + pos);
-            return null;
+    // the interned node for a cell, walkable or not
+    public Integer getNode(int cell) {
+        Integer node = handles[cell];
+        if (node == null) {
+            node = cell;
+            handles[cell] = node;
         }
+        return node;
+    }
 
-        return nodes[x][y];
+    // the node of a walkable cell inside the window or null
+    public Integer getNodeAt(Vector2 world) {
+        int cell = getCell(world);
+        return cell >= 0 && isWalkable(cell) ? getNode(cell) : null;
+    }
+
+    // an edge of its own between two neighbouring cells, for paths of connections that outlive getConnections
+    Connection<Integer> newEdge(int fromCell, int toCell) {
+        getNeighbours(fromCell, neighbours);
+        for (int i = 0; i < DIRECTION_COUNT; i++) {
+            if (neighbours[i] == toCell) return new Edge().set(getNode(fromCell), getNode(toCell), getStepCost(fromCell, toCell, i));
+        }
+        throw new IllegalArgumentException("cells " + fromCell + " and " + toCell + " are not walkable neighbours");
+    }
+
+    // fills out with the walkable neighbour of the cell in each of the DIRECTION_COUNT directions, -1 when blocked or outside the window
+    public void getNeighbours(int cell, int[] out) {
+        int x = cell / ALL_CHUNK_SIZE;
+        int y = cell - x * ALL_CHUNK_SIZE;
+        // the window does not wrap, cells on opposite edges are not neighbours
+        int relativeX = step(x, -wrappedOriginX);
+        int relativeY = step(y, -wrappedOriginY);
+        int column = x * ALL_CHUNK_SIZE;
+        int left = relativeX > 0 ? step(x, -1) * ALL_CHUNK_SIZE : -1;
+        int right = relativeX < ALL_CHUNK_SIZE - 1 ? step(x, 1) * ALL_CHUNK_SIZE : -1;
+        int down = relativeY > 0 ? step(y, -1) : -1;
+        int up = relativeY < ALL_CHUNK_SIZE - 1 ? step(y, 1) : -1;
+        out[0] = walkableAt(column, up);
+        out[1] = walkableAt(right, y);
+        out[2] = walkableAt(column, down);
+        out[3] = walkableAt(left, y);
+        out[4] = walkableAt(right, up);
+        out[5] = walkableAt(right, down);
+        out[6] = walkableAt(left, up);
+        out[7] = walkableAt(left, down);
+    }
+
+    private int walkableAt(int column, int y) {
+        if (column < 0 || y < 0) return -1;
+        int cell = column + y;
+        return isWalkable(cell) ? cell : -1;
+    }
+
+    public static boolean isDiagonal(int direction) {
+        return direction >= 4;
     }
 
     @Override
-    public Array<Connection<GraphNode>> getConnections(GraphNode fromNode) {
-        return fromNode.getConnections();
+    public Array<Connection<Integer>> getConnections(Integer fromNode) {
+        connections.clear();
+        getNeighbours(fromNode, neighbours);
+        for (int i = 0; i < DIRECTION_COUNT; i++) {
+            int toCell = neighbours[i];
+            if (toCell >= 0) connections.add(edges[i].set(fromNode, getNode(toCell), getStepCost(fromNode, toCell, i)));
+        }
+        return connections;
     }
 
     @Override
-    public int getIndex(GraphNode node) {
-        // Ensure the index stays within bounds by using modulo
-        int x = (int) node.position.x % ALL_CHUNK_SIZE;
-        int y = (int) node.position.y % ALL_CHUNK_SIZE;
-        return x * ALL_CHUNK_SIZE + y;
+    public int getIndex(Integer node) {
+        return node;
     }
 
     @Override
     public int getNodeCount() {
-        return ALL_CHUNK_SIZE * ALL_CHUNK_SIZE;  // Total number of possible nodes
+        return NODE_COUNT;
     }
 
-    public GraphNode getNodeAt(float x, float y) {
-        return nodes[(int) x][(int) y];
-    }
+    private static class Edge implements Connection<Integer> {
+        Integer from;
+        Integer to;
+        float cost;
 
+        Edge set(Integer from, Integer to, int stepCost) {
+            this.from = from;
+            this.to = to;
+            this.cost = stepCost / (float) CARDINAL_COST;
+            return this;
+        }
+
+        @Override
+        public float getCost() {
+            return cost;
+        }
+
+        @Override
+        public Integer getFromNode() {
+            return from;
+        }
+
+        @Override
+        public Integer getToNode() {
+            return to;
+        }
+    }
 }
@@ -13,11 +13,13 @@ import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
-import com.github.tommyettinger.textra.FWSkin;
 import io.github.nickolasddiaz.components.*;
+import io.github.nickolasddiaz.screens.LoadingScreen;
 import io.github.nickolasddiaz.screens.MainMenuScreen;
 import io.github.nickolasddiaz.systems.*;
+import io.github.nickolasddiaz.utils.ChunkStore;
 import io.github.nickolasddiaz.utils.EntityStats;
+import io.github.nickolasddiaz.utils.GameAssets;
 
 import static io.github.nickolasddiaz.utils.CollisionCategory.*;
 import static io.github.nickolasddiaz.utils.MapGenerator.TILE_SIZE;
@@ -45,12 +47,28 @@ public class yourgame extends Game {
     public Skin skin;
     public PlayerComponent playerComponent;
     private ChunkSystem chunkSystem;
+    private final ChunkStore chunkStore; // null on backends without a persistent chunk store
+    private GameAssets assets; // loaded once on the first start and kept across restarts
 
     // Sounds
     Sound ui_sound;
 
+    public yourgame() {
+        this(null);
+    }
+
+    public yourgame(ChunkStore chunkStore) {
+        this.chunkStore = chunkStore;
+    }
+
+    // also runs again when the game restarts
     public void create() {
-        ui_sound = Gdx.audio.newSound(Gdx.files.internal("sounds/click_ui.mp3"));
+        if (assets == null) { // first start, the LoadingScreen calls create again once every asset is loaded
+            assets = new GameAssets();
+            this.setScreen(new LoadingScreen(this, assets));
+            return;
+        }
+        ui_sound = assets.sound(GameAssets.CLICK_SOUND);
 
         engine = new Engine();
         batch = new SpriteBatch();
@@ -58,12 +76,12 @@ public class yourgame extends Game {
 
         // Create player entity with properly initialized components
         player = new Entity();
-        skin = new FWSkin(Gdx.files.internal("ui_tank_game.json"));
+        skin = assets.skin();
 
         // Add other components
         if(settings == null)
             settings = new SettingsComponent();
-        chunk = new ChunkComponent();
+        chunk = new ChunkComponent(assets);
         player.add(chunk);
         //turret sprite is 50x20 while the tank sprite is 50x26 where itemSize is 25
         String tankType = Type(chunk.random, PLAYER);
@@ -80,7 +98,8 @@ public class yourgame extends Game {
         // Add entity to engine
         engine.addEntity(player);
         carFactory = new CarFactory(engine, skin, camera, chunk);
-        chunkSystem = new ChunkSystem(carFactory, transform);
+        if (chunkSystem != null) chunkSystem.dispose(); // create runs again when the game restarts
+        chunkSystem = new ChunkSystem(carFactory, transform, chunkStore, assets.tileCells());
         engine.addSystem(chunkSystem);
         car = carFactory.createTank(transform);
 
@@ -90,10 +109,10 @@ public class yourgame extends Game {
 
         engine.addSystem(new CarSystem(chunk));
         engine.addSystem(new SpriteRenderSystem(batch,camera,settings, engine));
-        bulletFactory = new BulletFactory(chunk.world, engine, skin, chunk, settings);
+        bulletFactory = new BulletFactory(chunk.world, engine, skin, chunk, settings, assets.sound(GameAssets.BULLET_SOUND));
         enemyFactory = new EnemyFactory(engine, skin, camera, chunk, statsComponent, transform, settings,playerComponent ,chunk);
         transform.turretComponent(skin.getSprite("turret"+tankType));
-        missileFactory = new MissileFactory(engine, skin, chunk, settings);
+        missileFactory = new MissileFactory(engine, skin, chunk, settings, assets.sound(GameAssets.MISSILE_SOUND));
         landMineFactory = new LandMineFactory(chunk.world,engine,skin,chunk.random);
 
 
@@ -111,7 +130,10 @@ public class yourgame extends Game {
     }
 
     public void dispose() {
-        batch.dispose();
+        if (batch != null) batch.dispose(); // null when closed while loading
+        if (chunkSystem != null) chunkSystem.dispose();
+        if (chunkStore != null) chunkStore.dispose();
+        assets.dispose();
     }
 
     public void updateGame(float delta) {
@@ -121,9 +143,7 @@ public class yourgame extends Game {
         Array<Body> bodiesToDestroy = new Array<>();
         chunk.world.getBodies(bodies);
         for (Body body : bodies) {
-            if (body.getUserData() instanceof Boolean) {
-                bodiesToDestroy.add(body);
-            } else if (body.getUserData() instanceof TransformComponent && ((TransformComponent) body.getUserData()).timeToLive != null) {
+            if (body.getUserData() instanceof TransformComponent && ((TransformComponent) body.getUserData()).timeToLive != null) {
                 ((TransformComponent) body.getUserData()).timeToLive -= delta;
                 if (((TransformComponent) body.getUserData()).timeToLive <= 0) {
                     bodiesToDestroy.add(body);
@@ -133,6 +153,7 @@ public class yourgame extends Game {
         for (Body body : bodiesToDestroy) {
             chunk.world.destroyBody(body);
         }
+        chunk.chunkBodies.destroyQueuedFixtures(); // destroyed structures
     }
     public void updateChunk(float delta){
         chunkSystem.update(delta);
@@ -0,0 +1,139 @@
+package io.github.nickolasddiaz.lwjgl3;
+
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.objects.PolygonMapObject;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Rectangle;
+import io.github.nickolasddiaz.utils.ChunkData;
+import io.github.nickolasddiaz.utils.TerrainGenerator;
+
+import java.nio.ByteBuffer;
+
+import static io.github.nickolasddiaz.utils.MapGenerator.MAP_SIZE;
+
+// Binary layout of one chunk inside a region file:
+// chunkX, chunkY | biome per tile (unsigned byte) | terrain per tile (unsigned byte, 0xFF for none)
+// | non-walkable grid as bits | object count | per object: kind, name index and rectangle or polygon floats
+final class ChunkDataCodec {
+    static final int FORMAT_VERSION = 1;
+
+    private static final int TILES = MAP_SIZE * MAP_SIZE;
+    private static final int NO_TERRAIN = 0xFF;
+    private static final byte RECTANGLE = 0;
+    private static final byte POLYGON = 1;
+    private static final String[] NAMES = {"DECORATION", "STRUCTURE", "VERTICAL", "HORIZONTAL", "OCEAN"};
+
+    private ChunkDataCodec() {
+    }
+
+    static ByteBuffer encode(ChunkData data) {
+        ByteBuffer buffer = ByteBuffer.allocate(fixedSize() + objectsSize(data.objects));
+        buffer.putInt(data.chunkX);
+        buffer.putInt(data.chunkY);
+
+        for (int x = 0; x < MAP_SIZE; x++) {
+            for (int y = 0; y < MAP_SIZE; y++) {
+                buffer.put((byte) data.biomeMap[x][y]);
+            }
+        }
+        for (short terrain : data.terrainMap) {
+            buffer.put((byte) (terrain == TerrainGenerator.EMPTY ? NO_TERRAIN : terrain));
+        }
+        byte bits = 0;
+        for (int i = 0; i < TILES; i++) {
+            if (data.notWalkableGrid[i / MAP_SIZE][i % MAP_SIZE]) bits |= (byte) (1 << (i & 7));
+            if ((i & 7) == 7) {
+                buffer.put(bits);
+                bits = 0;
+            }
+        }
+
+        buffer.putInt(data.objects.getCount());
+        for (MapObject object : data.objects) {
+            if (object instanceof RectangleMapObject) {
+                Rectangle rect = ((RectangleMapObject) object).getRectangle();
+                buffer.put(RECTANGLE).put(nameIndex(object.getName()));
+                buffer.putFloat(rect.x).putFloat(rect.y).putFloat(rect.width).putFloat(rect.height);
+            } else {
+                Polygon polygon = ((PolygonMapObject) object).getPolygon();
+                float[] vertices = polygon.getVertices();
+                buffer.put(POLYGON).put(nameIndex(object.getName()));
+                buffer.putFloat(polygon.getX()).putFloat(polygon.getY()).putInt(vertices.length);
+                for (float vertex : vertices) buffer.putFloat(vertex);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    static ChunkData decode(ByteBuffer buffer) {
+        int chunkX = buffer.getInt();
+        int chunkY = buffer.getInt();
+
+        int[][] biomeMap = new int[MAP_SIZE][MAP_SIZE];
+        for (int x = 0; x < MAP_SIZE; x++) {
+            for (int y = 0; y < MAP_SIZE; y++) {
+                biomeMap[x][y] = buffer.get() & 0xFF;
+            }
+        }
+        short[] terrainMap = new short[TILES];
+        for (int i = 0; i < TILES; i++) {
+            int terrain = buffer.get() & 0xFF;
+            terrainMap[i] = terrain == NO_TERRAIN ? TerrainGenerator.EMPTY : (short) terrain;
+        }
+        boolean[][] notWalkableGrid = new boolean[MAP_SIZE][MAP_SIZE];
+        byte bits = 0;
+        for (int i = 0; i < TILES; i++) {
+            if ((i & 7) == 0) bits = buffer.get();
+            notWalkableGrid[i / MAP_SIZE][i % MAP_SIZE] = (bits & (1 << (i & 7))) != 0;
+        }
+
+        MapObjects objects = new MapObjects();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            byte kind = buffer.get();
+            String name = NAMES[buffer.get()];
+            MapObject object;
+            if (kind == RECTANGLE) {
+                object = new RectangleMapObject(buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+            } else {
+                float polygonX = buffer.getFloat();
+                float polygonY = buffer.getFloat();
+                float[] vertices = new float[buffer.getInt()];
+                for (int v = 0; v < vertices.length; v++) vertices[v] = buffer.getFloat();
+                PolygonMapObject polygonObject = new PolygonMapObject(vertices);
+                polygonObject.getPolygon().setPosition(polygonX, polygonY);
+                object = polygonObject;
+            }
+            object.setName(name);
+            objects.add(object);
+        }
+        return new ChunkData(chunkX, chunkY, biomeMap, terrainMap, notWalkableGrid, objects);
+    }
+
+    private static int fixedSize() {
+        return 2 * Integer.BYTES + 2 * TILES + (TILES + 7) / 8 + Integer.BYTES;
+    }
+
+    private static int objectsSize(MapObjects objects) {
+        int size = 0;
+        for (MapObject object : objects) {
+            size += 2;
+            if (object instanceof RectangleMapObject) {
+                size += 4 * Float.BYTES;
+            } else {
+                size += 2 * Float.BYTES + Integer.BYTES + ((PolygonMapObject) object).getPolygon().getVertices().length * Float.BYTES;
+            }
+        }
+        return size;
+    }
+
+    private static byte nameIndex(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) return (byte) i;
+        }
+        throw new IllegalArgumentException("No stored name for chunk object " + name + ", add it and bump FORMAT_VERSION");
+    }
+}
@@ -4,6 +4,8 @@ import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
 import io.github.nickolasddiaz.yourgame;
 
+import java.io.File;
+
 /** Launches the desktop (LWJGL3) application. */
 public class Lwjgl3Launcher {
     public static void main(String[] args) {
@@ -12,7 +14,9 @@ public class Lwjgl3Launcher {
     }
 
     private static void createApplication() {
-        new Lwjgl3Application(new yourgame(), getDefaultConfiguration());
+        // generated chunks are kept on disk so revisiting them does not generate them again
+        RegionChunkStore chunkStore = new RegionChunkStore(new File(System.getProperty("user.home"), ".tank_game/chunks"));
+        new Lwjgl3Application(new yourgame(chunkStore), getDefaultConfiguration());
     }
 
     private static Lwjgl3ApplicationConfiguration getDefaultConfiguration() {
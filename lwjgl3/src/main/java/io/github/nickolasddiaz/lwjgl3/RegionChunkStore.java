@@ -0,0 +1,207 @@
+package io.github.nickolasddiaz.lwjgl3;
+
+import com.badlogic.gdx.Gdx;
+import io.github.nickolasddiaz.utils.ChunkData;
+import io.github.nickolasddiaz.utils.ChunkStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.github.nickolasddiaz.utils.MapGenerator.*;
+
+// Desktop ChunkStore, chunks are grouped into region files of REGION_SIZE x REGION_SIZE chunks read through a memory map.
+// A region file starts with a header (magic, version, seed) and an index of offset and length per chunk,
+// chunk data is appended after it. The worlds of the last MAX_WORLDS seeds played are kept, older ones are deleted
+// when a world opens.
+// The version covers the generator constants, a file written by an older generator is thrown away and refilled.
+public class RegionChunkStore implements ChunkStore {
+    private static final int REGION_SIZE = 8;
+    private static final int MAX_OPEN_REGIONS = 8;
+    private static final int MAX_WORLDS = 4;
+    private static final int MAGIC = 0x54475247; // "TGRG"
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+    private static final int INDEX_BYTES = REGION_SIZE * REGION_SIZE * 2 * Integer.BYTES;
+    private static final int VERSION = version();
+
+    private final File directory;
+    private File worldDirectory;
+    private int worldSeed;
+    private final LinkedHashMap<String, Region> regions = new LinkedHashMap<>(16, 0.75f, true);
+
+    public RegionChunkStore(File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public ChunkData load(int seed, int chunkX, int chunkY) {
+        try {
+            Region region = region(seed, chunkX, chunkY);
+            int slot = slot(chunkX, chunkY);
+            int offset = region.offsets[slot];
+            int length = region.lengths[slot];
+            if (length == 0) return null;
+
+            if (region.map == null || region.map.capacity() < offset + length) {
+                region.map = region.channel.map(FileChannel.MapMode.READ_ONLY, 0, region.channel.size());
+            }
+            ByteBuffer buffer = region.map.duplicate();
+            buffer.position(offset).limit(offset + length);
+            return ChunkDataCodec.decode(buffer);
+        } catch (IOException | RuntimeException e) {
+            Gdx.app.error("RegionChunkStore", "Could not read chunk " + chunkX + ", " + chunkY, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void save(int seed, ChunkData data) {
+        try {
+            Region region = region(seed, data.chunkX, data.chunkY);
+            ByteBuffer buffer = ChunkDataCodec.encode(data);
+            int offset = (int) region.channel.size();
+            int length = buffer.remaining();
+            region.channel.write(buffer, offset);
+
+            int slot = slot(data.chunkX, data.chunkY);
+            ByteBuffer entry = ByteBuffer.allocate(2 * Integer.BYTES).putInt(offset).putInt(length);
+            entry.flip();
+            region.channel.write(entry, HEADER_BYTES + slot * 2L * Integer.BYTES);
+            region.offsets[slot] = offset;
+            region.lengths[slot] = length;
+        } catch (IOException | RuntimeException e) {
+            Gdx.app.error("RegionChunkStore", "Could not store chunk " + data.chunkX + ", " + data.chunkY, e);
+        }
+    }
+
+    private Region region(int seed, int chunkX, int chunkY) throws IOException {
+        if (worldDirectory == null || seed != worldSeed) openWorld(seed);
+
+        int regionX = Math.floorDiv(chunkX, REGION_SIZE);
+        int regionY = Math.floorDiv(chunkY, REGION_SIZE);
+        String name = "r." + regionX + "." + regionY + ".bin";
+        Region region = regions.get(name);
+        if (region == null) {
+            region = new Region(new File(worldDirectory, name), seed);
+            regions.put(name, region);
+            closeEldestRegions();
+        }
+        return region;
+    }
+
+    private void openWorld(int seed) throws IOException {
+        closeRegions();
+        worldDirectory = new File(directory, Integer.toString(seed));
+        if (!worldDirectory.isDirectory() && !worldDirectory.mkdirs()) {
+            worldDirectory = null;
+            throw new IOException("Could not create " + directory);
+        }
+        worldDirectory.setLastModified(System.currentTimeMillis()); // the last time the world was played
+        worldSeed = seed;
+        deleteOldWorlds();
+    }
+
+    // keeps the MAX_WORLDS worlds played last
+    private void deleteOldWorlds() {
+        File[] worlds = directory.listFiles(File::isDirectory);
+        if (worlds == null || worlds.length <= MAX_WORLDS) return;
+        Arrays.sort(worlds, Comparator.comparingLong(File::lastModified).reversed());
+        for (int i = MAX_WORLDS; i < worlds.length; i++) {
+            if (!worlds[i].equals(worldDirectory)) delete(worlds[i]);
+        }
+    }
+
+    private void closeEldestRegions() throws IOException {
+        Iterator<Map.Entry<String, Region>> iterator = regions.entrySet().iterator();
+        while (regions.size() > MAX_OPEN_REGIONS && iterator.hasNext()) {
+            iterator.next().getValue().close();
+            iterator.remove();
+        }
+    }
+
+    private void closeRegions() throws IOException {
+        for (Region region : regions.values()) region.close();
+        regions.clear();
+    }
+
+    private static int slot(int chunkX, int chunkY) {
+        return Math.floorMod(chunkX, REGION_SIZE) * REGION_SIZE + Math.floorMod(chunkY, REGION_SIZE);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) delete(child);
+        }
+        if (!file.delete()) file.deleteOnExit();
+    }
+
+    // changes whenever anything that shapes a chunk or the file layout changes
+    private static int version() {
+        int version = ChunkDataCodec.FORMAT_VERSION;
+        version = 31 * version + GENERATOR_VERSION;
+        version = 31 * version + ROAD_SIZE;
+        version = 31 * version + MAP_SIZE;
+        version = 31 * version + TILE_SIZE;
+        version = 31 * version + Float.floatToIntBits(FREQUENCY);
+        version = 31 * version + Double.hashCode(ROAD_DENSITY);
+        version = 31 * version + Double.hashCode(DECORATION_DENSITY);
+        version = 31 * version + Float.floatToIntBits(TILE_PER_METER);
+        return 31 * version + REGION_SIZE;
+    }
+
+    @Override
+    public void dispose() {
+        try {
+            closeRegions();
+        } catch (IOException e) {
+            Gdx.app.error("RegionChunkStore", "Could not close region files", e);
+        }
+    }
+
+    private static class Region {
+        final RandomAccessFile file;
+        final FileChannel channel;
+        final int[] offsets = new int[REGION_SIZE * REGION_SIZE];
+        final int[] lengths = new int[REGION_SIZE * REGION_SIZE];
+        MappedByteBuffer map; // remapped when a chunk was appended past its end
+
+        Region(File path, int seed) throws IOException {
+            file = new RandomAccessFile(path, "rw");
+            channel = file.getChannel();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + INDEX_BYTES);
+            boolean valid = channel.size() >= header.capacity() && channel.read(header, 0) == header.capacity();
+            header.flip();
+            valid = valid && header.getInt() == MAGIC && header.getInt() == VERSION && header.getInt() == seed;
+
+            if (valid) {
+                for (int i = 0; i < offsets.length; i++) {
+                    offsets[i] = header.getInt();
+                    lengths[i] = header.getInt();
+                }
+            } else {
+                // new or outdated file, start over with an empty index
+                channel.truncate(0);
+                header.clear();
+                header.putInt(MAGIC).putInt(VERSION).putInt(seed);
+                while (header.hasRemaining()) header.put((byte) 0);
+                header.flip();
+                channel.write(header, 0);
+            }
+        }
+
+        void close() throws IOException {
+            map = null;
+            file.close();
+        }
+    }
+}